@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -36,11 +38,18 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
 import ca.gc.pspc.referencevonactuator.intg.JsonValidateException;
 import ca.gc.pspc.referencevonactuator.vonconnector.Agent;
+import ca.gc.pspc.referencevonactuator.vonconnector.AgentExecutor;
+import ca.gc.pspc.referencevonactuator.vonconnector.ClaimIndex;
 import ca.gc.pspc.referencevonactuator.vonconnector.Config;
+import ca.gc.pspc.referencevonactuator.vonconnector.Deadline;
 import ca.gc.pspc.referencevonactuator.vonconnector.MessageType;
 import ca.gc.pspc.referencevonactuator.vonconnector.ProtoUtil;
+import ca.gc.pspc.referencevonactuator.vonconnector.SchemaCache;
 import ca.gc.pspc.referencevonactuator.vonconnector.SchemaKey;
 import ca.gc.pspc.referencevonactuator.vonconnector.Util;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.Claim;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ClaimOffer;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ClaimRequest;
 
 public class ReferenceActuator {
     /* this code is noodling from primordial BC team org book API actuation, parts could be useful still
@@ -71,7 +80,7 @@ public class ReferenceActuator {
     public static void __main(String[] args) throws IOException, JsonValidateException {
         // Get schema attr_names from schema of interest
         String legalEntityId = "bf2b560f-4553-4c09-995c-b021d7663c42"; // nothing burgers
-        SchemaKey sKey = new SchemaKey(
+        SchemaKey sKey = SchemaKey.of(
             "27TL9VHhcQNok9QvHLVx1a",
             "incorporation.bc_registries",
             "1.0.30");
@@ -178,44 +187,56 @@ public class ReferenceActuator {
         Map<String, Agent> did2agent = new HashMap<>();
         Map<String, String> profile2did = new HashMap<>();
         Map<SchemaKey, JsonNode> schemaStore = new HashMap<>();
+        Map<SchemaKey, CompletableFuture<JsonNode>> schemaLookups = new HashMap<>();
         Map<String, SchemaKey> S_KEY = new HashMap<>();
 
+        MessageType.loadTemplates();
+        long batchDeadlineMillis = Config.getInstance().getLong("deadline.batch-ms", 120000L);
+
         // 2. Get demo agent wrappers' DIDs; get and store any originated schema configured as of interest
+        Set<Agent> available = Agent.discover();
         for (Agent agent : Agent.values()) {
-            String profile = agent.toString();
-            String did = agent.getDid();
-            profile2did.put(profile, did);
-            did2agent.put(did, agent);
+            if (!available.contains(agent)) {
+                System.out.println(String.format("WARN: Agent [%s] not yet available, retrying", agent));
+            }
+        }
+        Deadline.Scope scope = Deadline.after(batchDeadlineMillis, TimeUnit.MILLISECONDS).enter();
+        try {
+            for (Agent agent : Agent.values()) {
+                String profile = agent.toString();
+                String did = agent.getDid();
+                profile2did.put(profile, did);
+                did2agent.put(did, agent);
 
-            System.out.println(String.format(
-                "\n\n== 0.%d == %s: %s",
-                agent.ordinal(),
-                agent.toString(),
-                agent.getDid()));
-
-            Properties schemata = Config.getInstance().getPrefixed(String.format("agent.%s.schema.", profile));
-            for (String name : schemata.stringPropertyNames()) {
-                String[] versions = schemata.getProperty(name).split("\\s*,\\s*");
-                for (String version : versions) {
-                    SchemaKey sKey = new SchemaKey(did, name, version);
-                    schemaStore.put(
-                        sKey,
-                        Agent.TRUST_ANCHOR.getPostResponse(
-                            null,
-                            MessageType.SCHEMA_LOOKUP,
-                            sKey.getOriginDid(),
-                            sKey.getName(),
-                            sKey.getVersion()));
+                System.out.println(String.format(
+                    "\n\n== 0.%d == %s: %s",
+                    agent.ordinal(),
+                    agent.toString(),
+                    agent.getDid()));
+
+                Properties schemata = Config.getInstance().getPrefixed(String.format("agent.%s.schema.", profile));
+                for (String name : schemata.stringPropertyNames()) {
+                    String[] versions = schemata.getProperty(name).split("\\s*,\\s*");
+                    for (String version : versions) {
+                        SchemaKey sKey = SchemaKey.of(did, name, version);
+                        schemaLookups.put(sKey, SchemaCache.getInstance().getAsync(sKey));
+                    }
                 }
             }
         }
+        finally {
+            scope.close();
+        }
+        for (SchemaKey sKey : schemaLookups.keySet()) {
+            schemaStore.put(sKey, AgentExecutor.await(schemaLookups.get(sKey)));
+        }
 
-        S_KEY.put("BC", new SchemaKey(profile2did.get("bc-registrar"), "bc-reg", "1.0"));
-        S_KEY.put("SRI-1.0", new SchemaKey(profile2did.get("sri"), "sri", "1.0"));
-        S_KEY.put("SRI-1.1", new SchemaKey(profile2did.get("sri"), "sri", "1.1"));
-        S_KEY.put("GREEN", new SchemaKey(profile2did.get("sri"), "green", "1.0"));
+        S_KEY.put("BC", SchemaKey.of(profile2did.get("bc-registrar"), "bc-reg", "1.0"));
+        S_KEY.put("SRI-1.0", SchemaKey.of(profile2did.get("sri"), "sri", "1.0"));
+        S_KEY.put("SRI-1.1", SchemaKey.of(profile2did.get("sri"), "sri", "1.1"));
+        S_KEY.put("GREEN", SchemaKey.of(profile2did.get("sri"), "green", "1.0"));
 
-        Map<SchemaKey, JsonNode> claimNode = new HashMap<>();
+        Map<SchemaKey, Claim> claim = new HashMap<>();
 
         int idx = 0;
         for (SchemaKey sKey : schemaStore.keySet()) {
@@ -228,17 +249,26 @@ public class ReferenceActuator {
 
         // 4. BC Org Book, PSPC org book (as HolderProvers) take claims-reset directive, restore state to base line
         JsonNode emptyRespNode = null;
-        idx = 0;
-        for (Agent ag : new Agent[] {Agent.BC_ORG_BOOK, Agent.PSPC_ORG_BOOK}) {
-            emptyRespNode = ag.getPostResponse(
-                null,
-                MessageType.CLAIMS_RESET);
+        List<CompletableFuture<JsonNode>> resets = new ArrayList<>();
+        scope = Deadline.after(batchDeadlineMillis, TimeUnit.MILLISECONDS).enter();
+        try {
+            for (Agent ag : new Agent[] {Agent.BC_ORG_BOOK, Agent.PSPC_ORG_BOOK}) {
+                resets.add(ag.postAsync(
+                    null,
+                    MessageType.CLAIMS_RESET));
+            }
+        }
+        finally {
+            scope.close();
+        }
+        for (CompletableFuture<JsonNode> reset : resets) {
+            emptyRespNode = AgentExecutor.await(reset);
             assert (emptyRespNode.size() == 0);
         }
 
         // 5. Issuers create claim-offers for HolderProvers (by proxy via Issuer) to store
-        Map<SchemaKey, JsonNode> claimOffer = new HashMap<>();
-        Map<SchemaKey, JsonNode> claimReq = new HashMap<>();
+        Map<SchemaKey, ClaimOffer> claimOffer = new HashMap<>();
+        Map<SchemaKey, ClaimRequest> claimReq = new HashMap<>();
         idx = 0;
         for (SchemaKey sKey : schemaStore.keySet()) {
             String originDid = sKey.getOriginDid();
@@ -246,34 +276,21 @@ public class ReferenceActuator {
                 originDid == Agent.BC_REGISTRAR.getDid()
                     ? "bc-org-book"
                     : "pspc-org-book");
-            claimOffer.put(
-                sKey,
-                did2agent.get(originDid).getPostResponse(
-                    null,
-                    MessageType.CLAIM_OFFER_CREATE,
-                    sKey.getOriginDid(),
-                    sKey.getName(),
-                    sKey.getVersion(),
-                    holderProver.getDid()));
-            assert (claimOffer.get(sKey).size() > 0);
+            claimOffer.put(sKey, did2agent.get(originDid).createClaimOffer(sKey, holderProver.getDid()));
+            assert (claimOffer.get(sKey).getSchemaKey() != null);
             System.out.println(String.format(
                 "\n\n== 2.%d.0 == Claim offer %s: %s",
                 idx,
                 sKey.toString(),
-                JsonUtil.pprint(claimOffer.get(sKey))));
+                JsonUtil.pprint(claimOffer.get(sKey).toJson())));
 
-            claimReq.put(
-                sKey,
-                did2agent.get(originDid).getPostResponse(
-                    holderProver,
-                    MessageType.CLAIM_OFFER_STORE,
-                    claimOffer.get(sKey).toString()));
+            claimReq.put(sKey, did2agent.get(originDid).storeClaimOffer(holderProver, claimOffer.get(sKey)));
             System.out.println(String.format(
                 "\n\n== 2.%d.1 == Claim request %s: %s",
                 idx++,
                 sKey.toString(),
-                JsonUtil.pprint(claimReq.get(sKey))));
-            assert (claimReq.get(sKey).size() > 0);
+                JsonUtil.pprint(claimReq.get(sKey).toJson())));
+            assert (claimReq.get(sKey).getSchemaKey() != null);
         }
 
         // 6. BC Registrar creates claims and stores at BC Org Book (HolderProver)
@@ -313,23 +330,15 @@ public class ReferenceActuator {
         idx = 0;
         for (SchemaKey sKey : claimDataNode.keySet()) {
             for (JsonNode c : claimDataNode.get(sKey)) {
-                claimNode.put(sKey, Agent.BC_REGISTRAR.getPostResponse(
-                    null,
-                    MessageType.CLAIM_CREATE,
-                    claimReq.get(sKey).toString(),
-                    c.toString()));
+                claim.put(sKey, Agent.BC_REGISTRAR.createClaim(claimReq.get(sKey), c));
                 System.out.println(String.format(
                     "\n\n== 3.%d == BC claim: %s",
                     idx++,
-                    JsonUtil.pprint(claimNode.get(sKey))));
-                assert (claimNode.get(sKey).size() > 0);
+                    JsonUtil.pprint(claim.get(sKey).toJson())));
+                assert (claim.get(sKey).toJson().size() > 0);
 
                 // claim-store, BC registrar agent proxy to BC org book agent
-                emptyRespNode = Agent.BC_REGISTRAR.getPostResponse(
-                    Agent.BC_ORG_BOOK,
-                    MessageType.CLAIM_STORE,
-                    claimNode.get(sKey).toString());
-                assert (emptyRespNode.size() == 0);
+                Agent.BC_REGISTRAR.storeClaim(Agent.BC_ORG_BOOK, claim.get(sKey));
             }
         }
 
@@ -337,10 +346,10 @@ public class ReferenceActuator {
         JsonNode bcClaimsAllNode = Agent.SRI.getPostResponse(
             Agent.BC_ORG_BOOK,
             MessageType.CLAIM_REQUEST,
-            ProtoUtil.listSchemata(S_KEY.get("BC")).toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString());
+            ProtoUtil.listSchemata(S_KEY.get("BC")),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray());
         assert (bcClaimsAllNode.size() > 0);
         System.out.println(String.format(
             "\n\n== 4 == All BC claims, no filter: %s",
@@ -352,7 +361,8 @@ public class ReferenceActuator {
             (ObjectNode)((ObjectNode)JsonUtil.jsonObject()).set(
                 "legalName",
                 claimDataNode.get(S_KEY.get("BC")).get(2).get("legalName")));
-        Map<String, ?> bcDisplayPrunedFiltPostHoc = Util.claimsFor(bcClaimsAllNode.get("claims"), filt);
+        ClaimIndex bcClaimsAllIndex = new ClaimIndex(bcClaimsAllNode.get("claims")); // walk claims once, filter twice
+        Map<String, ?> bcDisplayPrunedFiltPostHoc = bcClaimsAllIndex.claimsFor(filt);
         System.out.println(String.format(
             "\n\n== 5 == BC display claims filtered post-hoc matching %s: %s",
             claimDataNode.get(S_KEY.get("BC")).get(2).get("legalName").textValue(),
@@ -362,10 +372,10 @@ public class ReferenceActuator {
             Agent.SRI.getPostResponse(
                 Agent.BC_ORG_BOOK,
                 MessageType.PROOF_REQUEST,
-                ProtoUtil.listSchemata(S_KEY.get("BC")).toString(),
-                JsonUtil.jsonArray().toString(),
-                JsonUtil.jsonArray().toString(),
-                JsonUtil.jsonArray().toString());
+                ProtoUtil.listSchemata(S_KEY.get("BC")),
+                JsonUtil.jsonArray(),
+                JsonUtil.jsonArray(),
+                JsonUtil.jsonArray());
             assert false;
         }
         catch (IOException x) {
@@ -393,16 +403,16 @@ public class ReferenceActuator {
         JsonNode bcClaimsPreFiltNode = Agent.SRI.getPostResponse(
             Agent.BC_ORG_BOOK,
             MessageType.CLAIM_REQUEST,
-            ProtoUtil.listSchemata(S_KEY.get("BC")).toString(),
-            claimFiltAttrMatches.toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString());
+            ProtoUtil.listSchemata(S_KEY.get("BC")),
+            claimFiltAttrMatches,
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray());
         assert (bcClaimsPreFiltNode.size() > 0);
 
         System.out.println(String.format(
             "\n\n== 7 == BC claims filtered a priori: %s",
             JsonUtil.pprint(bcClaimsPreFiltNode)));
-        Map<String, ?> bcDisplayPrunedPreFilt = Util.claimsFor(bcClaimsAllNode.get("claims"), null);
+        Map<String, ?> bcDisplayPrunedPreFilt = bcClaimsAllIndex.claimsFor(null);
         System.out.println(String.format(
             "\n\n== 8 == BC display claims filtered a priori matching %s: %s",
             claimDataNode.get(S_KEY.get("BC")).get(2).get("legalName").textValue(),
@@ -414,10 +424,10 @@ public class ReferenceActuator {
         JsonNode bcProofRespNode = Agent.SRI.getPostResponse(
             Agent.BC_ORG_BOOK,
             MessageType.PROOF_REQUEST,
-            ProtoUtil.listSchemata(S_KEY.get("BC")).toString(),
-            claimFiltAttrMatches.toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString());
+            ProtoUtil.listSchemata(S_KEY.get("BC")),
+            claimFiltAttrMatches,
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray());
         System.out.println(String.format(
             "\n\n== 9 == proof (req by filter): %s",
             JsonUtil.pprint(bcProofRespNode)));
@@ -427,8 +437,8 @@ public class ReferenceActuator {
         JsonNode sriBcVerificationRespNode = Agent.SRI.getPostResponse(
             null,
             MessageType.VERIFICATION_REQUEST,
-            bcProofRespNode.get("proof-req").toString(),
-            bcProofRespNode.get("proof").toString());
+            bcProofRespNode.get("proof-req"),
+            bcProofRespNode.get("proof"));
         System.out.println(String.format(
             "\n\n== 10 == SRI agent verifies BC proof (by filter) as: %s",
             JsonUtil.pprint(sriBcVerificationRespNode)));
@@ -443,9 +453,9 @@ public class ReferenceActuator {
         bcProofRespNode = Agent.SRI.getPostResponse(
             Agent.BC_ORG_BOOK,
             MessageType.PROOF_REQUEST_BY_REFERENT,
-            ProtoUtil.listSchemata(sKeys).toString(),
-            JsonUtil.toJsonNode(bcReferents).toString(),
-            JsonUtil.jsonArray().toString());
+            ProtoUtil.listSchemata(sKeys),
+            JsonUtil.toJsonNode(bcReferents),
+            JsonUtil.jsonArray());
         assert (bcProofRespNode.size() > 0);
 
         // 11. BC Org Book agent (as HolderProver) creates non-proof by non-referent
@@ -453,10 +463,10 @@ public class ReferenceActuator {
             Agent.SRI.getPostResponse(
                 Agent.BC_ORG_BOOK,
                 MessageType.PROOF_REQUEST_BY_REFERENT,
-                ProtoUtil.listSchemata(sKeys).toString(),
+                ProtoUtil.listSchemata(sKeys),
                 JsonUtil.toJsonNode(Arrays.asList(
-                    new String[] {"claim::ffffffff-ffff-ffff-ffff-ffffffffffff"})).toString(),
-                JsonUtil.jsonArray().toString());
+                    new String[] {"claim::ffffffff-ffff-ffff-ffff-ffffffffffff"})),
+                JsonUtil.jsonArray());
             assert false;
         }
         catch (IOException x) {
@@ -467,8 +477,8 @@ public class ReferenceActuator {
         sriBcVerificationRespNode = Agent.SRI.getPostResponse(
             null,
             MessageType.VERIFICATION_REQUEST,
-            bcProofRespNode.get("proof-req").toString(),
-            bcProofRespNode.get("proof").toString());
+            bcProofRespNode.get("proof-req"),
+            bcProofRespNode.get("proof"));
         System.out.println(String.format(
             "\n\n== 11 == SRI agent verifies BC proof (by referent=%s) as: %s",
             JsonUtil.toJsonNode(bcReferents),
@@ -491,10 +501,10 @@ public class ReferenceActuator {
         JsonNode claimsFoundPredNode = Agent.SRI.getPostResponse(
             Agent.BC_ORG_BOOK,
             MessageType.CLAIM_REQUEST,
-            ProtoUtil.listSchemata(S_KEY.get("BC")).toString(),
-            JsonUtil.jsonArray().toString(),
-            predMatches.toString(),
-            requestedAttrs.toString());
+            ProtoUtil.listSchemata(S_KEY.get("BC")),
+            JsonUtil.jsonArray(),
+            predMatches,
+            requestedAttrs);
 
         Set<String> bcSchemaAttrsLessId = new HashSet<>();
         Iterator<JsonNode> it = schemaStore.get(S_KEY.get("BC")).get("data").get("attr_names").iterator();
@@ -527,10 +537,10 @@ public class ReferenceActuator {
         claimsFoundPredNode = Agent.SRI.getPostResponse(
             Agent.BC_ORG_BOOK,
             MessageType.CLAIM_REQUEST,
-            ProtoUtil.listSchemata(S_KEY.get("BC")).toString(),
-            JsonUtil.jsonArray().toString(),
-            predMatches.toString(),
-            JsonUtil.jsonArray().toString());
+            ProtoUtil.listSchemata(S_KEY.get("BC")),
+            JsonUtil.jsonArray(),
+            predMatches,
+            JsonUtil.jsonArray());
         claimAttrs = new HashSet<>();
         reqAttrsNode = claimsFoundPredNode.get("proof-req").get("requested_attrs");
         attrUuids = reqAttrsNode.fieldNames();
@@ -566,10 +576,10 @@ public class ReferenceActuator {
         JsonNode bcProofRespPredNode = Agent.SRI.getPostResponse(
             Agent.BC_ORG_BOOK,
             MessageType.PROOF_REQUEST,
-            ProtoUtil.listSchemata(S_KEY.get("BC")).toString(),
-            JsonUtil.jsonArray().toString(),
-            predMatches.toString(),
-            JsonUtil.jsonArray().toString());
+            ProtoUtil.listSchemata(S_KEY.get("BC")),
+            JsonUtil.jsonArray(),
+            predMatches,
+            JsonUtil.jsonArray());
         assert (bcProofRespPredNode.size() > 0);
         System.out.println(String.format(
             "\n\n== 14 == BC proof by predicates id, orgTypeId >= 2: %s",
@@ -595,8 +605,8 @@ public class ReferenceActuator {
         sriBcVerificationRespNode = Agent.SRI.getPostResponse(
             null,
             MessageType.VERIFICATION_REQUEST,
-            bcProofRespPredNode.get("proof-req").toString(),
-            bcProofRespPredNode.get("proof").toString());
+            bcProofRespPredNode.get("proof-req"),
+            bcProofRespPredNode.get("proof"));
         System.out.println(String.format(
             "\n\n== 16 == SRI agent verifies BC proof by predicates id, orgTypeId >= 2 as: %s",
             JsonUtil.pprint(sriBcVerificationRespNode)));
@@ -669,25 +679,17 @@ public class ReferenceActuator {
                 continue;
             }
             for (JsonNode cNode : claimDataNode.get(sKey)) {
-                claimNode.put(sKey, Agent.SRI.getPostResponse(
-                    null,
-                    MessageType.CLAIM_CREATE,
-                    claimReq.get(sKey).toString(),
-                    cNode.toString()));
-                assert (claimNode.get(sKey).size() > 0);
+                claim.put(sKey, Agent.SRI.createClaim(claimReq.get(sKey), cNode));
+                assert (claim.get(sKey).toJson().size() > 0);
 
                 System.out.println(String.format(
                     "\n\n== 18.%d == [%s v%s] claim : %s",
                     idx++,
                     sKey.getName(),
                     sKey.getVersion(),
-                    JsonUtil.pprint(claimNode.get(sKey))));
+                    JsonUtil.pprint(claim.get(sKey).toJson())));
 
-                emptyRespNode = did2agent.get(sKey.getOriginDid()).getPostResponse(
-                    Agent.PSPC_ORG_BOOK,
-                    MessageType.CLAIM_STORE,
-                    claimNode.get(sKey).toString());
-                assert (emptyRespNode.size() == 0);
+                did2agent.get(sKey.getOriginDid()).storeClaim(Agent.PSPC_ORG_BOOK, claim.get(sKey));
             }
         }
 
@@ -700,10 +702,10 @@ public class ReferenceActuator {
             JsonNode sriClaimNode = Agent.SRI.getPostResponse(
                 Agent.PSPC_ORG_BOOK,
                 MessageType.CLAIM_REQUEST,
-                ProtoUtil.listSchemata(sKey).toString(),
-                JsonUtil.jsonArray().toString(),
-                JsonUtil.jsonArray().toString(),
-                JsonUtil.jsonArray().toString());
+                ProtoUtil.listSchemata(sKey),
+                JsonUtil.jsonArray(),
+                JsonUtil.jsonArray(),
+                JsonUtil.jsonArray());
             System.out.println(String.format(
                 "\n\n== 19.%d.0 == SRI claims on [%s v%s], no filter: %s",
                 idx,
@@ -719,10 +721,10 @@ public class ReferenceActuator {
             sriClaimNode = Agent.SRI.getPostResponse(
                 Agent.PSPC_ORG_BOOK,
                 MessageType.CLAIM_REQUEST,
-                JsonUtil.jsonArray().toString(),
-                claimFiltAttrMatches.toString(),
-                JsonUtil.jsonArray().toString(),
-                JsonUtil.jsonArray().toString());
+                JsonUtil.jsonArray(),
+                claimFiltAttrMatches,
+                JsonUtil.jsonArray(),
+                JsonUtil.jsonArray());
             System.out.println(String.format(
                 "\n\n== 19.%d.1 == SRI claims, filter for all attrs in schema [%s v%s]: %s",
                 idx++,
@@ -750,10 +752,10 @@ public class ReferenceActuator {
                 .keySet()
                 .stream()
                 .filter(sKey -> !sKey.equals(S_KEY.get("BC")))
-                .toArray(SchemaKey[]::new)).toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString(),
-            requestedAttrs.toString());
+                .toArray(SchemaKey[]::new)),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray(),
+            requestedAttrs);
         System.out.println(String.format(
             "\n\n== 20 == All SRI claims at PSPC Org Book, first attr only: %s",
             JsonUtil.pprint(sriClaimsAllFirstAttrNode)));
@@ -767,10 +769,10 @@ public class ReferenceActuator {
                 .keySet()
                 .stream()
                 .filter(sKey -> !sKey.equals(S_KEY.get("BC")))
-                .toArray(SchemaKey[]::new)).toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString());
+                .toArray(SchemaKey[]::new)),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray());
         System.out.println(String.format(
             "\n\n== 21 == All SRI claims at PSPC Org Book, all attrs: %s",
             JsonUtil.pprint(sriClaimsAllNode)));
@@ -788,10 +790,10 @@ public class ReferenceActuator {
                 .keySet()
                 .stream()
                 .filter(sKey -> !sKey.equals(S_KEY.get("BC")))
-                .toArray(SchemaKey[]::new)).toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString());
+                .toArray(SchemaKey[]::new)),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray());
         System.out.println(String.format(
             "\n\n== 23 == PSPC Org Book proof response on all claims: %s",
             JsonUtil.pprint(sriProofRespNode)));
@@ -802,8 +804,8 @@ public class ReferenceActuator {
         JsonNode sriVerificationRespNode = Agent.SRI.getPostResponse(
             null,
             MessageType.VERIFICATION_REQUEST,
-            sriProofRespNode.get("proof-req").toString(),
-            sriProofRespNode.get("proof").toString());
+            sriProofRespNode.get("proof-req"),
+            sriProofRespNode.get("proof"));
         System.out.println(String.format(
             "\n\n== 24 == SRI agent verifies proof (by empty filter) as: %s",
             JsonUtil.pprint(sriVerificationRespNode)));
@@ -817,9 +819,9 @@ public class ReferenceActuator {
                 .keySet()
                 .stream()
                 .filter(sKey -> !sKey.equals(S_KEY.get("BC")))
-                .toArray(SchemaKey[]::new)).toString(),
-            JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())).toString(),
-            JsonUtil.jsonArray().toString());
+                .toArray(SchemaKey[]::new)),
+            JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())),
+            JsonUtil.jsonArray());
         System.out.println(String.format(
             "\n\n== 25 == PSPC org book proof response on referents %s: %s",
             JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())),
@@ -830,8 +832,8 @@ public class ReferenceActuator {
         sriVerificationRespNode = Agent.SRI.getPostResponse(
             null,
             MessageType.VERIFICATION_REQUEST,
-            sriProofRespNode.get("proof-req").toString(),
-            sriProofRespNode.get("proof").toString());
+            sriProofRespNode.get("proof-req"),
+            sriProofRespNode.get("proof"));
         System.out.println(String.format(
             "\n\n== 26 == SRI agent verifies proof on referents %s as: %s",
             JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())),
@@ -857,9 +859,9 @@ public class ReferenceActuator {
         sriProofRespNode = Agent.SRI.getPostResponse(
             Agent.PSPC_ORG_BOOK,
             MessageType.PROOF_REQUEST_BY_REFERENT,
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())).toString(),
-            requestedAttrs.toString());
+            JsonUtil.jsonArray(),
+            JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())),
+            requestedAttrs);
         System.out.println(String.format(
             "\n\n== 27 == PSPC org book proof response, schemata implicit, referents %s, not legalName: %s",
             JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())),
@@ -897,8 +899,8 @@ public class ReferenceActuator {
         sriVerificationRespNode = Agent.SRI.getPostResponse(
             null,
             MessageType.VERIFICATION_REQUEST,
-            sriProofRespNode.get("proof-req").toString(),
-            sriProofRespNode.get("proof").toString());
+            sriProofRespNode.get("proof-req"),
+            sriProofRespNode.get("proof"));
         System.out.println(String.format(
             "\n\n== 29 == SRI agent verifies proof on referents %s as: %s",
             JsonUtil.toJsonNode(sriDisplay.keySet().stream().collect(Collectors.toList())),
@@ -909,11 +911,11 @@ public class ReferenceActuator {
         sriProofRespNode = Agent.SRI.getPostResponse(
             Agent.PSPC_ORG_BOOK,
             MessageType.PROOF_REQUEST,
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString(),
-            JsonUtil.jsonArray().toString(),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray(),
+            JsonUtil.jsonArray(),
             JsonUtil.toJsonNode(Arrays.asList(
-                new ObjectNode[] {ProtoUtil.reqAttrs(S_KEY.get("GREEN"), new String[] {})})).toString());
+                new ObjectNode[] {ProtoUtil.reqAttrs(S_KEY.get("GREEN"), new String[] {})})));
         System.out.println(String.format(
             "\n\n== 30 == PSPC org book proof response to green claims response: %s",
             JsonUtil.pprint(sriProofRespNode)));
@@ -940,8 +942,8 @@ public class ReferenceActuator {
         sriVerificationRespNode = Agent.SRI.getPostResponse(
             null,
             MessageType.VERIFICATION_REQUEST,
-            sriProofRespNode.get("proof-req").toString(),
-            sriProofRespNode.get("proof").toString());
+            sriProofRespNode.get("proof-req"),
+            sriProofRespNode.get("proof"));
         System.out.println(String.format(
             "\n\n== 31 == SRI agent verifies proof on [%s v%s] attrs as: %s",
             S_KEY.get("GREEN").getName(),
@@ -16,20 +16,27 @@ limitations under the License.
 
 package ca.gc.pspc.referencevonactuator.intg;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.text.SimpleDateFormat;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.TreeMap;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 public abstract class JsonUtil {
     static ObjectMapper defaultMapper;
+    static ObjectWriter compactWriter;
 
     public static JsonNode getJsonNodeFromClasspath(String name) throws JsonLoadException {
         JsonNode node = null;
@@ -101,6 +108,54 @@ public abstract class JsonUtil {
         return pprint(toJsonNode(data));
     }
 
+    /**
+     * Return canonical compact json for input node, with object fields in sorted order at every level, so that
+     * equal nodes produce equal text whatever their field order.
+     */
+    public static String toCanonicalString(JsonNode jsonNode) {
+        StringWriter rv = new StringWriter();
+        try (JsonGenerator gen = getDefaultMapper().getFactory().createGenerator(rv)) {
+            writeCanonical(gen, jsonNode);
+        }
+        catch (IOException x) {
+            throw new IllegalStateException(x); // StringWriter does not fail
+        }
+        return rv.toString();
+    }
+
+    /**
+     * Write input node to input generator as canonical json, with object fields in sorted order at every level.
+     */
+    public static void writeCanonical(JsonGenerator gen, JsonNode jsonNode) throws IOException {
+        if (jsonNode == null) {
+            gen.writeNull();
+        }
+        else if (jsonNode.isObject()) {
+            Map<String, JsonNode> sorted = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                sorted.put(field.getKey(), field.getValue());
+            }
+            gen.writeStartObject();
+            for (Map.Entry<String, JsonNode> field : sorted.entrySet()) {
+                gen.writeFieldName(field.getKey());
+                writeCanonical(gen, field.getValue());
+            }
+            gen.writeEndObject();
+        }
+        else if (jsonNode.isArray()) {
+            gen.writeStartArray();
+            for (JsonNode element : jsonNode) {
+                writeCanonical(gen, element);
+            }
+            gen.writeEndArray();
+        }
+        else {
+            gen.writeTree(jsonNode);
+        }
+    }
+
     public static ObjectMapper getDefaultMapper() {
         if (defaultMapper == null) {
             defaultMapper = new ObjectMapper()
@@ -112,7 +167,15 @@ public abstract class JsonUtil {
             SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss'Z'");
             df.setTimeZone(TimeZone.getTimeZone("UTC"));
             defaultMapper.setDateFormat(df);
+            defaultMapper.findAndRegisterModules(); // as per META-INF/services
         }
         return defaultMapper;
     }
+
+    public static ObjectWriter getCompactWriter() {
+        if (compactWriter == null) {
+            compactWriter = getDefaultMapper().writer().without(SerializationFeature.INDENT_OUTPUT);
+        }
+        return compactWriter;
+    }
 }
@@ -16,19 +16,39 @@ limitations under the License.
 
 package ca.gc.pspc.referencevonactuator.vonconnector;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.Claim;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ClaimOffer;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ClaimRequest;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ClaimsFound;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.Proof;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ProofRequest;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ProofResponse;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.Schema;
 
 /**
  * <code>Agent</code> enum encapsulates operations and attributes particular to agents in scope:
@@ -47,32 +67,65 @@ public enum Agent {
     BC_ORG_BOOK("bc-org-book"),
     BC_REGISTRAR("bc-registrar");
 
+    private static SingleFlight<List<Object>, JsonNode> inFlightCalls = new SingleFlight<>(JsonNode::deepCopy);
+    private static ClaimRequestCache claimRequests = new ClaimRequestCache();
+    private static VerificationCache verifications = new VerificationCache();
+
     private String profile;
     private String host;
     private int port;
-    private String did;
+    private volatile String did;
+    private AtomicBoolean rediscovering = new AtomicBoolean();
+    private AgentTransport transport;
+    private CircuitBreaker breaker;
+    private ConcurrencyLimit limit;
+    private Map<String, String> getHeaders = new HashMap<>();
+    private Map<String, String> postHeaders = new HashMap<>();
 
     private Agent(String profile) {
         this.profile = profile;
+        this.transport = PooledTransport.getInstance();
+        this.breaker = new CircuitBreaker(this);
+        this.limit = new ConcurrencyLimit(profile);
+
+        String acceptEncoding = configured("compression", "transport.compression");
+        if (acceptEncoding != null) {
+            getHeaders.put("Accept-Encoding", acceptEncoding);
+            postHeaders.put("Accept-Encoding", acceptEncoding);
+        }
+        String contentEncoding = configured("request-compression", "transport.request-compression");
+        if (contentEncoding != null) {
+            postHeaders.put("Content-Encoding", contentEncoding);
+        }
 
-        HttpURLConnection con = null;
         try {
             host = Config.getInstance().get(String.format("agent.%s.host", profile));
             port = Integer.parseInt(Config.getInstance().get(String.format("agent.%s.port", profile)));
-
-            JsonNode node = getGetResponse("did");
-            did = node.textValue();
         }
-        catch (IOException | NumberFormatException x) {
+        catch (NumberFormatException x) {
             // still in static context: abandon startup sequence
             x.printStackTrace();
             System.exit(1);
         }
-        finally {
-            if (con != null) {
-                con.disconnect();
-            }
+    }
+
+    /**
+     * Returns configured compression setting for current agent, falling back to input default property;
+     * null for none.
+     *
+     * @param prop
+     *     property name, following agent profile prefix
+     * @param dfltProp
+     *     default property name
+     *
+     * @return content encoding, null for none
+     */
+    private String configured(String prop, String dfltProp) {
+        String rv = Config.getInstance().get(String.format("agent.%s.%s", profile, prop));
+        if (rv == null) {
+            rv = Config.getInstance().get(dfltProp);
         }
+        return (rv == null || rv.trim().isEmpty() || rv.trim().equalsIgnoreCase("none")) ? null : rv.trim();
     }
 
     /**
@@ -120,6 +173,43 @@ public enum Agent {
         return port;
     }
 
+    /**
+     * Returns transport carrying messages to current agent.
+     *
+     * @return transport
+     */
+    public AgentTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets transport carrying messages to current agent (default <code>PooledTransport</code>).
+     *
+     * @param transport
+     *     transport to use for subsequent messages
+     */
+    public void setTransport(AgentTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Returns circuit breaker protecting calls to current agent.
+     *
+     * @return circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Returns adaptive limit on asynchronous calls in flight to current agent.
+     *
+     * @return concurrency limit
+     */
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return limit;
+    }
+
     /**
      * Returns URL for agent given URL suffix following API and version (e.g., <code>api/v0/</code>).
      * Method injects protocol, host, port, API and version, and <code>format=json</code> parameter.
@@ -140,12 +230,142 @@ public enum Agent {
     }
 
     /**
-     * Get DID of current agent, pre-loaded at startup.
+     * Get DID of current agent, resolving it from the agent on first use if <code>discover()</code>
+     * has not already done so.
      * 
      * @return DID
+     *
+     * @throws UncheckedIOException if agent is unavailable to resolve its DID
      */
     public String getDid() {
-        return did;
+        try {
+            return resolveDid();
+        }
+        catch (IOException x) {
+            throw new UncheckedIOException(String.format("Agent [%s] unavailable to resolve DID", profile), x);
+        }
+    }
+
+    /**
+     * Get DID of current agent, resolving it from the agent on first use.
+     *
+     * @return DID
+     *
+     * @throws IOException if agent is unavailable to resolve its DID
+     */
+    public String resolveDid() throws IOException {
+        String rv = did;
+        if (rv == null) {
+            synchronized (this) {
+                if (did == null) {
+                    JsonNode resolved = getGetResponse("did");
+                    if (resolved == null || resolved.textValue() == null) {
+                        throw new IOException(String.format("Agent [%s] returned no DID", profile));
+                    }
+                    did = resolved.textValue();
+                }
+                rv = did;
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Forget DID of current agent, so that its next use resolves it from the agent anew.
+     */
+    void forgetDid() {
+        did = null;
+    }
+
+    /**
+     * Return whether current agent has resolved its DID, and so is known to be available.
+     *
+     * @return whether DID is resolved
+     */
+    public boolean isAvailable() {
+        return did != null;
+    }
+
+    /**
+     * Resolve DIDs of all agents in parallel, waiting up to configured <code>discovery.timeout-ms</code>.
+     *
+     * @return agents with DIDs resolved
+     */
+    public static Set<Agent> discover() {
+        return discover(Config.getInstance().getLong("discovery.timeout-ms", 10000L), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Resolve DIDs of all agents in parallel, waiting up to input timeout, and return the agents
+     * available by then. Agents that fail or time out remain usable on their own resolution on first use,
+     * and meanwhile retry in the background, backing off from <code>discovery.retry-ms</code> up to
+     * <code>discovery.retry-max-ms</code> between attempts.
+     *
+     * @param timeout
+     *     maximum time to wait for resolution
+     * @param unit
+     *     time unit of timeout
+     *
+     * @return agents with DIDs resolved
+     */
+    public static Set<Agent> discover(long timeout, TimeUnit unit) {
+        Map<Agent, CompletableFuture<String>> resolutions = new EnumMap<>(Agent.class);
+        for (Agent ag : values()) {
+            resolutions.put(ag, AgentExecutor.getInstance().submit(ag, ag::resolveDid));
+        }
+
+        try {
+            CompletableFuture
+                .allOf(resolutions.values().stream().toArray(CompletableFuture<?>[]::new))
+                .get(timeout, unit);
+        }
+        catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException | TimeoutException x) {
+            // carry on with the agents that did resolve
+        }
+
+        Set<Agent> rv = EnumSet.noneOf(Agent.class);
+        for (Agent ag : values()) {
+            if (ag.isAvailable()) {
+                rv.add(ag);
+            }
+            else {
+                resolutions.get(ag).whenComplete((resolved, x) -> {
+                    if (x != null) {
+                        ag.rediscover(Config.getInstance().getLong("discovery.retry-ms", 1000L));
+                    }
+                });
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Retry DID resolution in the background after input delay, doubling the delay on each failure,
+     * until the agent resolves its DID.
+     *
+     * @param delayMillis
+     *     delay (ms) before next attempt
+     */
+    private void rediscover(long delayMillis) {
+        if (!rediscovering.compareAndSet(false, true)) {
+            return; // already in hand
+        }
+        AgentExecutor.getInstance().schedule(
+            () -> AgentExecutor.getInstance().submit(this, this::resolveDid).whenComplete((resolved, x) -> {
+                rediscovering.set(false);
+                if (x != null) {
+                    rediscover(Math.min(
+                        2 * delayMillis,
+                        Config.getInstance().getLong("discovery.retry-max-ms", 30000L)));
+                }
+            }),
+            delayMillis,
+            TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -153,6 +373,9 @@ public enum Agent {
      * template file (in the <code>protocol/</code> directory from the input <code>MessageType</code> and
      * interpolates input (<code>String</code>) arguments (and the DID for the proxy agent if applicable),
      * then POSTs the result to the current agent, marshalls the result into a json node and returns it.
+     * The call times out and retries as per the <code>CallPolicy</code> for the message type, within any
+     * current <code>Deadline</code>. Concurrent identical calls of idempotent message types coalesce into
+     * a single HTTP exchange, each caller receiving its own copy of the response.
      * 
      * @param proxyTo
      *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
@@ -163,34 +386,250 @@ public enum Agent {
      *
      * @return json node with response
      * 
-     * @throws IOException if agent does not respond with HTTP 200 response code
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public JsonNode getPostResponse(
+            Agent proxyTo,
+            MessageType msgType,
+            Object... args) throws IOException {
+        if (!msgType.isIdempotent()) {
+            return handlePostResponse(ResponseHandler.TREE, proxyTo, msgType, args);
+        }
+        return inFlightCalls.execute(
+            inFlightKey(proxyTo, msgType, args),
+            () -> handlePostResponse(ResponseHandler.TREE, proxyTo, msgType, args));
+    }
+
+    /**
+     * POSTs message to current agent as per <code>getPostResponse()</code> with <code>String</code> arguments,
+     * but slots input json nodes into the message tree directly (see <code>MessageType.form()</code>) rather
+     * than interpolating them as text.
+     *
+     * @param proxyTo
+     *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param args
+     *     json nodes to populate message to POST to agent
+     *
+     * @return json node with response
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
      */
     public JsonNode getPostResponse(
+            Agent proxyTo,
+            MessageType msgType,
+            JsonNode... args) throws IOException {
+        if (!msgType.isIdempotent()) {
+            return handlePostResponse(ResponseHandler.TREE, proxyTo, msgType, args);
+        }
+        return inFlightCalls.execute(
+            inFlightKey(proxyTo, msgType, args),
+            () -> handlePostResponse(ResponseHandler.TREE, proxyTo, msgType, args));
+    }
+
+    /**
+     * Return key identifying POST of message to current agent, for coalescing concurrent identical calls.
+     *
+     * @param proxyTo
+     *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param args
+     *     arguments to populate message
+     *
+     * @return key for in-flight call
+     *
+     * @throws IOException on failure to resolve proxy agent DID
+     */
+    private List<Object> inFlightKey(Agent proxyTo, MessageType msgType, Object[] args) throws IOException {
+        return Arrays.asList(this, proxyTo == null ? null : proxyTo.resolveDid(), msgType, Arrays.asList(args));
+    }
+
+    /**
+     * POSTs message to current agent as per <code>getPostResponse()</code>, but streams the response through
+     * input handler rather than marshalling it into a json node, and returns the handler's result. Responses to
+     * <code>claim-request</code> come from the <code>ClaimRequestCache</code> where possible (the handler then
+     * consumes the cached response); <code>claim-store</code> and <code>claims-reset</code> invalidate the cached
+     * responses of the HolderProver they target. Outcomes of <code>verification-request</code> come from the
+     * <code>VerificationCache</code> where possible.
+     *
+     * @param handler
+     *     handler to consume response as it streams from agent
+     * @param proxyTo
+     *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param args
+     *     (<code>String</code>) arguments to populate message to POST to agent
+     *
+     * @return handler result
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public <T> T handlePostResponse(
+            ResponseHandler<T> handler,
             Agent proxyTo,
             MessageType msgType,
             Object... args) throws IOException {
         assert (Stream.of(args).allMatch(s -> s instanceof String));
+        return handlePostResponse(handler, proxyTo, msgType, args, proxyDid -> msgType.form(proxyDid, args));
+    }
 
-        URL url = urlFor(msgType.getSlug());
-        HttpURLConnection con = HttpMethod.POST.getConn(url);
-        DataOutputStream wr = new DataOutputStream(con.getOutputStream());
-        JsonNode msgNode = msgType.form(proxyTo == null ? null : proxyTo.getDid(), args);
-        wr.write(msgNode.toString().getBytes(StandardCharsets.UTF_8));
-        wr.close();
-
-        int httpRc = con.getResponseCode();
-        if (httpRc != 200) {
-            throw new IOException(String.format("Agent [%s] returned [%d]", profile, httpRc));
-        }
-        BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-        String inputLine;
-        StringBuffer content = new StringBuffer();
-        while ((inputLine = in.readLine()) != null) {
-            content.append(inputLine);
-        }
-        in.close();
-        JsonNode rv = JsonUtil.getDefaultMapper().readTree(content.toString());
-        return rv;
+    /**
+     * POSTs message to current agent as per <code>handlePostResponse()</code> with <code>String</code> arguments,
+     * but slots input json nodes into the message tree directly (see <code>MessageType.form()</code>) rather
+     * than interpolating them as text.
+     *
+     * @param handler
+     *     handler to consume response as it streams from agent
+     * @param proxyTo
+     *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param args
+     *     json nodes to populate message to POST to agent
+     *
+     * @return handler result
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public <T> T handlePostResponse(
+            ResponseHandler<T> handler,
+            Agent proxyTo,
+            MessageType msgType,
+            JsonNode... args) throws IOException {
+        return handlePostResponse(handler, proxyTo, msgType, args, proxyDid -> msgType.form(proxyDid, args));
+    }
+
+    /**
+     * Serve <code>handlePostResponse()</code> from caches where possible, else form message and POST it.
+     *
+     * @param handler
+     *     handler to consume response
+     * @param proxyTo
+     *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param args
+     *     arguments to populate message, for cache keys
+     * @param form
+     *     function forming message from proxy DID (null for none)
+     *
+     * @return handler result
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    private <T> T handlePostResponse(
+            ResponseHandler<T> handler,
+            Agent proxyTo,
+            MessageType msgType,
+            Object[] args,
+            Function<String, JsonNode> form) throws IOException {
+        String proxyDid = proxyTo == null ? null : proxyTo.resolveDid();
+        if (msgType == MessageType.CLAIM_REQUEST) {
+            String holderDid = proxyDid == null ? resolveDid() : proxyDid;
+            List<String> key = claimRequests.keyFor(holderDid, args);
+            JsonNode response = claimRequests.get(key);
+            if (response == null) {
+                long epoch = claimRequests.epoch(holderDid);
+                long[] bytes = new long[1];
+                response = post(parser -> {
+                    JsonNode rv = ResponseHandler.TREE.handle(parser);
+                    bytes[0] = parser.getCurrentLocation().getByteOffset();
+                    return rv;
+                }, msgType, form.apply(proxyDid));
+                if (response != null) {
+                    claimRequests.put(key, epoch, response, bytes[0] < 0 ? response.toString().length() : bytes[0]);
+                }
+            }
+            return replay(handler, response);
+        }
+
+        if (msgType == MessageType.VERIFICATION_REQUEST) {
+            String key = verifications.keyFor(this, args);
+            JsonNode response = verifications.get(key);
+            if (response == null) {
+                response = post(ResponseHandler.TREE, msgType, form.apply(proxyDid));
+                verifications.put(key, response);
+            }
+            return replay(handler, response);
+        }
+
+        try {
+            return post(handler, msgType, form.apply(proxyDid));
+        }
+        finally {
+            if (msgType == MessageType.CLAIM_STORE || msgType == MessageType.CLAIMS_RESET) {
+                claimRequests.invalidate(proxyDid == null ? resolveDid() : proxyDid); // holder's claims change
+            }
+        }
+    }
+
+    /**
+     * Run input handler over cached response, as if streaming from agent.
+     *
+     * @param handler
+     *     handler to consume response
+     * @param response
+     *     cached response, null for empty
+     *
+     * @return handler result
+     *
+     * @throws IOException on handler failure
+     */
+    private static <T> T replay(ResponseHandler<T> handler, JsonNode response) throws IOException {
+        return handler.handle(response == null
+            ? JsonUtil.getDefaultMapper().getFactory().createParser(new byte[0])
+            : response.traverse(JsonUtil.getDefaultMapper()));
+    }
+
+    /**
+     * Return cache of responses to <code>claim-request</code> messages, shared across agents.
+     *
+     * @return claim request cache
+     */
+    public static ClaimRequestCache getClaimRequestCache() {
+        return claimRequests;
+    }
+
+    /**
+     * Return cache of outcomes of <code>verification-request</code> messages, shared across agents.
+     *
+     * @return verification cache
+     */
+    public static VerificationCache getVerificationCache() {
+        return verifications;
+    }
+
+    /**
+     * POST formed message to current agent, streaming response through input handler.
+     *
+     * @param handler
+     *     handler to consume response as it streams from agent
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param msgNode
+     *     message as formed for message type
+     *
+     * @return handler result
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    private <T> T post(ResponseHandler<T> handler, MessageType msgType, JsonNode msgNode) throws IOException {
+        return call(
+            msgType.getSlug(),
+            CallPolicy.forMessageType(msgType),
+            HttpMethod.POST,
+            urlFor(msgType.getSlug()),
+            msgNode,
+            handler);
     }
 
     /**
@@ -201,23 +640,469 @@ public enum Agent {
      * 
      * @return json node in response from current agent
      * 
-     * @throws IOException if agent does not respond with HTTP 200 response code
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
      */
     public JsonNode getGetResponse(String urlSuffix) throws IOException {
-        URL url = urlFor(urlSuffix);
-        HttpURLConnection con = HttpMethod.GET.getConn(url);
-        int httpRc = con.getResponseCode();
-        if (httpRc != 200) {
-            throw new IOException(String.format("Agent [%s] returned HTTP %d", profile, httpRc));
-        }
-        BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-        String inputLine;
-        StringBuffer content = new StringBuffer();
-        while ((inputLine = in.readLine()) != null) {
-            content.append(inputLine);
-        }
-        in.close();
-        JsonNode rv = JsonUtil.getDefaultMapper().readTree(content.toString());
-        return rv;
+        return handleGetResponse(ResponseHandler.TREE, urlSuffix);
+    }
+
+    /**
+     * Issues GET request to current agent, streaming response through input handler for return of its result.
+     *
+     * @param handler
+     *     handler to consume response as it streams from agent
+     * @param urlSuffix
+     *     URL path component following API and version
+     *
+     * @return handler result
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public <T> T handleGetResponse(ResponseHandler<T> handler, String urlSuffix) throws IOException {
+        return call("get", CallPolicy.forGet(), HttpMethod.GET, urlFor(urlSuffix), null, handler);
+    }
+
+    /**
+     * Exchange request and response with current agent via its transport, under input call policy and
+     * within any current deadline: time out each attempt as a whole per policy (or sooner, as the time remaining
+     * before the deadline requires), and retry per policy on connection failures, timeouts, and HTTP 5xx
+     * responses, unless the deadline would expire during the backoff before the retry. Each attempt reports
+     * its outcome to the agent's circuit breaker and concurrency limit, and fails fast while the breaker is open.
+     *
+     * @param callType
+     *     call type (message type slug on POST), for concurrency limit to compare latency against its baseline
+     * @param policy
+     *     call policy
+     * @param method
+     *     HTTP method (GET, POST)
+     * @param url
+     *     URL to which to issue request
+     * @param body
+     *     request body on POST; null for none
+     * @param handler
+     *     handler to consume response body
+     *
+     * @return handler result
+     *
+     * @throws IOException on failure of final attempt, on expiry of current deadline, or (as
+     *     <code>CircuitOpenException</code>) while circuit breaker is open
+     */
+    private <T> T call(
+            String callType,
+            CallPolicy policy,
+            HttpMethod method,
+            URL url,
+            Object body,
+            ResponseHandler<T> handler) throws IOException {
+        Deadline deadline = Deadline.current();
+        for (int attempt = 1; ; attempt++) {
+            int timeoutMillis = policy.getTimeoutMillis();
+            if (deadline != null) {
+                if (deadline.isExpired()) {
+                    throw new InterruptedIOException(String.format("Deadline expired calling agent [%s]", profile));
+                }
+                long remaining = Math.max(1L, deadline.remainingMillis());
+                if (timeoutMillis == 0 || timeoutMillis > remaining) {
+                    timeoutMillis = (int)Math.min(remaining, Integer.MAX_VALUE);
+                }
+            }
+
+            breaker.check();
+            long start = System.nanoTime();
+            try {
+                T rv = transport.exchange(
+                    method,
+                    url,
+                    method == HttpMethod.POST ? postHeaders : getHeaders,
+                    body,
+                    handler,
+                    timeoutMillis);
+                long elapsed = System.nanoTime() - start;
+                breaker.record(null, elapsed);
+                limit.record(callType, false, elapsed);
+                return rv;
+            }
+            catch (IOException x) {
+                long elapsed = System.nanoTime() - start;
+                breaker.record(x, elapsed);
+                limit.record(callType, CircuitBreaker.isFailure(x), elapsed);
+                if (attempt >= policy.getMaxAttempts() || !isRetriable(x)) {
+                    throw x;
+                }
+                long backoffMillis = policy.backoffMillis(attempt);
+                if (deadline != null && backoffMillis >= deadline.remainingMillis()) {
+                    throw x; // no time left to retry after backoff
+                }
+                try {
+                    Thread.sleep(backoffMillis);
+                }
+                catch (InterruptedException xx) {
+                    Thread.currentThread().interrupt();
+                    throw x;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return whether a call failing on input exception may succeed on retry: true for connection failures,
+     * timeouts, and HTTP 5xx responses; false for HTTP 4xx responses, interruptions, and open circuit breakers.
+     *
+     * @param x
+     *     exception on failure
+     *
+     * @return whether retry may succeed
+     */
+    private static boolean isRetriable(IOException x) {
+        if (x instanceof HttpStatusException) {
+            return ((HttpStatusException)x).getStatus() >= 500;
+        }
+        if (x instanceof SocketTimeoutException) {
+            return true;
+        }
+        return !(x instanceof InterruptedIOException || x instanceof CircuitOpenException);
+    }
+
+    /**
+     * Probe health of current agent: GET its DID directly through its transport, bypassing its circuit breaker.
+     *
+     * @return json node in response
+     *
+     * @throws IOException if agent is not healthy
+     */
+    JsonNode probe() throws IOException {
+        return transport.exchange(
+            HttpMethod.GET,
+            urlFor("did"),
+            getHeaders,
+            null,
+            ResponseHandler.TREE,
+            CallPolicy.forGet().getTimeoutMillis());
+    }
+
+    /**
+     * POSTs message to current agent asynchronously, as per <code>getPostResponse()</code>, subject to the agent's
+     * cap on calls in flight as <code>AgentExecutor</code> enforces.
+     *
+     * @param proxyTo
+     *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param args
+     *     (<code>String</code>) arguments to populate message to POST to agent
+     *
+     * @return future completing with json node in response, or exceptionally on <code>IOException</code>
+     */
+    public CompletableFuture<JsonNode> postAsync(
+            Agent proxyTo,
+            MessageType msgType,
+            Object... args) {
+        return AgentExecutor.getInstance().submit(this, () -> getPostResponse(proxyTo, msgType, args));
+    }
+
+    /**
+     * POSTs message to current agent asynchronously, as per <code>getPostResponse()</code> with json node
+     * arguments, subject to the agent's cap on calls in flight as <code>AgentExecutor</code> enforces.
+     *
+     * @param proxyTo
+     *     instance of <code>Agent</code> to which to proxy input message; null to handle directly (no proxy)
+     * @param msgType
+     *     instance of <code>MessageType</code> to POST to agent
+     * @param args
+     *     json nodes to populate message to POST to agent
+     *
+     * @return future completing with json node in response, or exceptionally on <code>IOException</code>
+     */
+    public CompletableFuture<JsonNode> postAsync(
+            Agent proxyTo,
+            MessageType msgType,
+            JsonNode... args) {
+        return AgentExecutor.getInstance().submit(this, () -> getPostResponse(proxyTo, msgType, args));
+    }
+
+    /**
+     * Issues GET request to current agent asynchronously, as per <code>getGetResponse()</code>, subject to
+     * the agent's cap on calls in flight as <code>AgentExecutor</code> enforces.
+     *
+     * @param urlSuffix
+     *     URL path component following API and version
+     *
+     * @return future completing with json node in response, or exceptionally on <code>IOException</code>
+     */
+    public CompletableFuture<JsonNode> getAsync(String urlSuffix) {
+        return AgentExecutor.getInstance().submit(this, () -> getGetResponse(urlSuffix));
+    }
+
+    /**
+     * Look up schema on input key via current (trust anchor) agent.
+     *
+     * @param sKey
+     *     schema key
+     *
+     * @return schema, empty for no such schema
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public Schema lookupSchema(SchemaKey sKey) throws IOException {
+        return handlePostResponse(
+            ResponseHandler.binding(Schema.class),
+            null,
+            MessageType.SCHEMA_LOOKUP,
+            sKey.getOriginDid(),
+            sKey.getName(),
+            sKey.getVersion());
+    }
+
+    /**
+     * Create claim offer on input schema for input HolderProver from current (Issuer) agent.
+     *
+     * @param sKey
+     *     key of schema on which to offer claim
+     * @param holderDid
+     *     DID of HolderProver agent to which to offer claim
+     *
+     * @return claim offer
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public ClaimOffer createClaimOffer(SchemaKey sKey, String holderDid) throws IOException {
+        return handlePostResponse(
+            ResponseHandler.binding(ClaimOffer.class),
+            null,
+            MessageType.CLAIM_OFFER_CREATE,
+            sKey.getOriginDid(),
+            sKey.getName(),
+            sKey.getVersion(),
+            holderDid);
+    }
+
+    /**
+     * Store claim offer at HolderProver agent, by proxy via current agent.
+     *
+     * @param proxyTo
+     *     HolderProver agent to store claim offer (null for current agent)
+     * @param claimOffer
+     *     claim offer
+     *
+     * @return claim request from HolderProver
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public ClaimRequest storeClaimOffer(Agent proxyTo, ClaimOffer claimOffer) throws IOException {
+        return handlePostResponse(
+            ResponseHandler.binding(ClaimRequest.class),
+            proxyTo,
+            MessageType.CLAIM_OFFER_STORE,
+            new JsonNode[] {claimOffer.toPojoNode()});
+    }
+
+    /**
+     * Create claim from current (Issuer) agent on input claim request and attribute values.
+     *
+     * @param claimReq
+     *     claim request from HolderProver
+     * @param claimAttrs
+     *     claim attribute values by name
+     *
+     * @return claim
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public Claim createClaim(ClaimRequest claimReq, JsonNode claimAttrs) throws IOException {
+        return handlePostResponse(
+            ResponseHandler.binding(Claim.class),
+            null,
+            MessageType.CLAIM_CREATE,
+            new JsonNode[] {claimReq.toPojoNode(), claimAttrs});
+    }
+
+    /**
+     * Store claim at HolderProver agent, by proxy via current agent.
+     *
+     * @param proxyTo
+     *     HolderProver agent to store claim (null for current agent)
+     * @param claim
+     *     claim
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public void storeClaim(Agent proxyTo, Claim claim) throws IOException {
+        handlePostResponse(
+            ResponseHandler.TREE,
+            proxyTo,
+            MessageType.CLAIM_STORE,
+            new JsonNode[] {claim.toPojoNode()});
+    }
+
+    /**
+     * Request claims from HolderProver agent, by proxy via current agent.
+     *
+     * @param proxyTo
+     *     HolderProver agent (null for current agent)
+     * @param schemata
+     *     schemata specification (as <code>ProtoUtil.listSchemata()</code> returns)
+     * @param attrMatch
+     *     list of attr-match specifications (as <code>ProtoUtil.attrMatch()</code> returns)
+     * @param predMatch
+     *     list of predicate-match specifications (as <code>ProtoUtil.predMatch()</code> returns)
+     * @param requestedAttrs
+     *     list of requested-attrs specifications (as <code>ProtoUtil.reqAttrs()</code> returns)
+     *
+     * @return proof request and claims found
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public ClaimsFound requestClaims(
+            Agent proxyTo,
+            JsonNode schemata,
+            JsonNode attrMatch,
+            JsonNode predMatch,
+            JsonNode requestedAttrs) throws IOException {
+        return handlePostResponse(
+            ResponseHandler.binding(ClaimsFound.class),
+            proxyTo,
+            MessageType.CLAIM_REQUEST,
+            new JsonNode[] {schemata, attrMatch, predMatch, requestedAttrs});
+    }
+
+    /**
+     * Request claims from HolderProver agent, by proxy via current agent, retaining only claims matching input
+     * referents as the response streams in. A cached full response serves where present; otherwise the response
+     * bypasses the <code>ClaimRequestCache</code>, so that memory use is bounded by the claims retained.
+     *
+     * @param proxyTo
+     *     HolderProver agent (null for current agent)
+     * @param referents
+     *     referents whose corresponding claims to retain
+     * @param schemata
+     *     schemata specification (as <code>ProtoUtil.listSchemata()</code> returns)
+     * @param attrMatch
+     *     list of attr-match specifications (as <code>ProtoUtil.attrMatch()</code> returns)
+     * @param predMatch
+     *     list of predicate-match specifications (as <code>ProtoUtil.predMatch()</code> returns)
+     * @param requestedAttrs
+     *     list of requested-attrs specifications (as <code>ProtoUtil.reqAttrs()</code> returns)
+     *
+     * @return response with proof request and claims found for input referents
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public ObjectNode requestClaims(
+            Agent proxyTo,
+            Set<String> referents,
+            JsonNode schemata,
+            JsonNode attrMatch,
+            JsonNode predMatch,
+            JsonNode requestedAttrs) throws IOException {
+        String proxyDid = proxyTo == null ? null : proxyTo.resolveDid();
+        JsonNode[] args = new JsonNode[] {schemata, attrMatch, predMatch, requestedAttrs};
+        ResponseHandler<ObjectNode> handler = ResponseHandler.pruningClaims(referents);
+        JsonNode cached = claimRequests.get(claimRequests.keyFor(proxyDid == null ? resolveDid() : proxyDid, args));
+
+        return cached == null
+            ? post(handler, MessageType.CLAIM_REQUEST, MessageType.CLAIM_REQUEST.form(proxyDid, args))
+            : replay(handler, cached);
+    }
+
+    /**
+     * Request proof from HolderProver agent, by proxy via current agent.
+     *
+     * @param proxyTo
+     *     HolderProver agent (null for current agent)
+     * @param schemata
+     *     schemata specification (as <code>ProtoUtil.listSchemata()</code> returns)
+     * @param attrMatch
+     *     list of attr-match specifications (as <code>ProtoUtil.attrMatch()</code> returns)
+     * @param predMatch
+     *     list of predicate-match specifications (as <code>ProtoUtil.predMatch()</code> returns)
+     * @param requestedAttrs
+     *     list of requested-attrs specifications (as <code>ProtoUtil.reqAttrs()</code> returns)
+     *
+     * @return proof request and proof
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public ProofResponse requestProof(
+            Agent proxyTo,
+            JsonNode schemata,
+            JsonNode attrMatch,
+            JsonNode predMatch,
+            JsonNode requestedAttrs) throws IOException {
+        return handlePostResponse(
+            ResponseHandler.binding(ProofResponse.class),
+            proxyTo,
+            MessageType.PROOF_REQUEST,
+            new JsonNode[] {schemata, attrMatch, predMatch, requestedAttrs});
+    }
+
+    /**
+     * Request proof on claims by referent from HolderProver agent, by proxy via current agent.
+     *
+     * @param proxyTo
+     *     HolderProver agent (null for current agent)
+     * @param schemata
+     *     schemata specification (as <code>ProtoUtil.listSchemata()</code> returns)
+     * @param referents
+     *     list of referents
+     * @param requestedAttrs
+     *     list of requested-attrs specifications (as <code>ProtoUtil.reqAttrs()</code> returns)
+     *
+     * @return proof request and proof
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public ProofResponse requestProofByReferent(
+            Agent proxyTo,
+            JsonNode schemata,
+            JsonNode referents,
+            JsonNode requestedAttrs) throws IOException {
+        return handlePostResponse(
+            ResponseHandler.binding(ProofResponse.class),
+            proxyTo,
+            MessageType.PROOF_REQUEST_BY_REFERENT,
+            new JsonNode[] {schemata, referents, requestedAttrs});
+    }
+
+    /**
+     * Verify proof via current (Verifier) agent.
+     *
+     * @param proofReq
+     *     proof request
+     * @param proof
+     *     proof
+     *
+     * @return whether proof verifies
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public boolean verifyProof(ProofRequest proofReq, Proof proof) throws IOException {
+        Boolean rv = handlePostResponse(
+            ResponseHandler.binding(Boolean.class),
+            null,
+            MessageType.VERIFICATION_REQUEST,
+            new JsonNode[] {proofReq.toPojoNode(), proof.toPojoNode()});
+        return rv != null && rv;
+    }
+
+    /**
+     * Reset claims at current (HolderProver) agent, restoring wallet to its base line.
+     *
+     * @throws IOException on transport failure, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    public void resetClaims() throws IOException {
+        handlePostResponse(ResponseHandler.TREE, null, MessageType.CLAIMS_RESET, new JsonNode[0]);
     }
 }
@@ -0,0 +1,223 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <code>AgentExecutor</code> singleton runs asynchronous agent calls on a shared thread pool, holding each agent
+ * to its own cap on calls in flight: calls beyond the cap queue (per agent) until an earlier call completes, so that
+ * one busy agent cannot monopolize the pool. Each agent's cap is its (adaptive) <code>ConcurrencyLimit</code>.
+ * It also schedules deferred work such as retries. Configuration properties are:
+ * <ul>
+ *     <li><code>async.threads</code>: size of shared thread pool</li>.
+ * </ul>
+ */
+public class AgentExecutor {
+
+    private static AgentExecutor theInstance = null;
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private Map<Agent, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Return the instance, populating it from configuration first if necessary.
+     *
+     * @return the instance
+     */
+    synchronized static public AgentExecutor getInstance() {
+        if (theInstance == null) {
+            Config cfg = Config.getInstance();
+            theInstance = new AgentExecutor(cfg.getInt("async.threads", 2 * Agent.values().length));
+        }
+
+        return theInstance;
+    }
+
+    private AgentExecutor(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, String.format("von-agent-%d", threadCount.incrementAndGet()));
+            t.setDaemon(true); // do not hold up JVM exit
+            return t;
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "von-agent-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Return current cap on calls in flight to input agent.
+     *
+     * @param agent
+     *     agent of interest
+     *
+     * @return cap on calls in flight
+     */
+    public int getMaxInFlight(Agent agent) {
+        return agent.getConcurrencyLimit().getLimit();
+    }
+
+    /**
+     * Return number of calls currently in flight to input agent.
+     *
+     * @param agent
+     *     agent of interest
+     *
+     * @return calls in flight
+     */
+    public int getInFlight(Agent agent) {
+        return laneFor(agent).getInFlight();
+    }
+
+    /**
+     * Submit call to input agent for asynchronous execution, subject to the agent's cap on calls in flight.
+     * The call runs within the deadline current at submission, if any.
+     *
+     * @param agent
+     *     agent that input call targets
+     * @param call
+     *     call to execute
+     *
+     * @return future completing with result of call, or exceptionally with its exception
+     */
+    public <T> CompletableFuture<T> submit(Agent agent, Callable<T> call) {
+        CompletableFuture<T> rv = new CompletableFuture<>();
+        Deadline deadline = Deadline.current();
+        Lane lane = laneFor(agent);
+        lane.offer(() -> {
+            Deadline.Scope scope = Deadline.enter(deadline);
+            try {
+                rv.complete(call.call());
+            }
+            catch (Throwable x) {
+                rv.completeExceptionally(x);
+            }
+            finally {
+                scope.close();
+                lane.done();
+            }
+        });
+
+        return rv;
+    }
+
+    /**
+     * Schedule input task to run after input delay. Task runs on the scheduler thread, so it should hand any
+     * blocking work off to <code>submit()</code>.
+     *
+     * @param task
+     *     task to run
+     * @param delay
+     *     delay before running task
+     * @param unit
+     *     time unit of delay
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        scheduler.schedule(task, delay, unit);
+    }
+
+    /**
+     * Wait for input future to complete and return its result, unwrapping any <code>IOException</code>
+     * that it completes with.
+     *
+     * @param future
+     *     future of interest
+     *
+     * @return result of future
+     *
+     * @throws IOException if future completes exceptionally on <code>IOException</code>, or wait is interrupted
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted awaiting agent response");
+        }
+        catch (ExecutionException x) {
+            Throwable cause = x.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private Lane laneFor(Agent agent) {
+        return lanes.computeIfAbsent(agent, Lane::new);
+    }
+
+    /**
+     * <code>Lane</code> holds calls to one agent in excess of its cap until calls in flight complete.
+     */
+    private class Lane {
+        private ConcurrencyLimit limit;
+        private int inFlight = 0;
+        private Deque<Runnable> queue = new ArrayDeque<>();
+
+        Lane(Agent agent) {
+            this.limit = agent.getConcurrencyLimit();
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        synchronized void offer(Runnable job) {
+            queue.add(job);
+            dispatch();
+        }
+
+        synchronized void done() {
+            inFlight--;
+            dispatch();
+        }
+
+        private void dispatch() {
+            // limit moves with every call outcome: start as many calls in line as it allows now
+            int max = limit.getLimit();
+            while (inFlight < max && !queue.isEmpty()) {
+                inFlight++;
+                executor.execute(queue.poll());
+            }
+        }
+    }
+}
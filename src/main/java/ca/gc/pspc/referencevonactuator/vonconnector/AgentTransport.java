@@ -0,0 +1,102 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * <code>AgentTransport</code> abstracts the HTTP exchange between the actuator and an agent, so that
+ * <code>Agent</code> need not concern itself with connection management.
+ */
+public interface AgentTransport {
+
+    /**
+     * Issue request to input URL and stream response through input handler for return.
+     *
+     * @param method
+     *     HTTP method (GET, POST)
+     * @param url
+     *     URL to which to issue request
+     * @param headers
+     *     additional request headers; null for none. A <code>Content-Encoding</code> header (<code>gzip</code> or
+     *     <code>deflate</code>) compresses the request body accordingly; an <code>Accept-Encoding</code> header
+     *     admits a compressed response, which the transport decompresses as it streams to the handler
+     * @param body
+     *     json node (or data-bound object) to serialize as request body on POST; null for none
+     * @param handler
+     *     handler to consume response body
+     * @param timeoutMillis
+     *     timeout (ms) on the whole exchange, from awaiting a connection to reading the last of the response;
+     *     0 for none
+     *
+     * @return handler result
+     *
+     * @throws IOException on I/O failure or timeout, or (as <code>HttpStatusException</code>) if agent does not
+     *     respond with HTTP 200 response code
+     */
+    <T> T exchange(
+            HttpMethod method,
+            URL url,
+            Map<String, String> headers,
+            Object body,
+            ResponseHandler<T> handler,
+            int timeoutMillis) throws IOException;
+
+    /**
+     * Issue request to input URL, without additional headers or timeout, and stream response through input handler for return.
+     *
+     * @param method
+     *     HTTP method (GET, POST)
+     * @param url
+     *     URL to which to issue request
+     * @param body
+     *     json node (or data-bound object) to serialize as request body on POST; null for none
+     * @param handler
+     *     handler to consume response body
+     *
+     * @return handler result
+     *
+     * @throws IOException on I/O failure, or (as <code>HttpStatusException</code>) if agent does not respond
+     *     with HTTP 200 response code
+     */
+    default <T> T exchange(HttpMethod method, URL url, Object body, ResponseHandler<T> handler) throws IOException {
+        return exchange(method, url, null, body, handler, 0);
+    }
+
+    /**
+     * Issue request to input URL, without additional headers or timeout, and marshall response into json node for return.
+     *
+     * @param method
+     *     HTTP method (GET, POST)
+     * @param url
+     *     URL to which to issue request
+     * @param body
+     *     json node (or data-bound object) to serialize as request body on POST; null for none
+     *
+     * @return json node in response
+     *
+     * @throws IOException on I/O failure, or (as <code>HttpStatusException</code>) if agent does not respond
+     *     with HTTP 200 response code
+     */
+    default JsonNode exchange(HttpMethod method, URL url, Object body) throws IOException {
+        return exchange(method, url, body, ResponseHandler.TREE);
+    }
+}
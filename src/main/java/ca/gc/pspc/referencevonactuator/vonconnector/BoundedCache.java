@@ -0,0 +1,202 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * <code>BoundedCache</code> is a least-recently-used cache bounded by number of entries and by total weight
+ * (e.g., size in bytes) of its entries, with optional expiry of entries after a time to live. It counts hits
+ * and misses for monitoring.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+
+    private int maxEntries;
+    private long maxWeight;
+    private long ttlNanos;
+    private LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true); // access order
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Construct cache on bounds.
+     *
+     * @param maxEntries
+     *     maximum number of entries
+     * @param maxWeight
+     *     maximum total weight of entries
+     * @param ttlMillis
+     *     time (ms) for entries to live; 0 for no expiry
+     */
+    public BoundedCache(int maxEntries, long maxWeight, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis * 1000000L;
+    }
+
+    /**
+     * Return value for input key, null on miss or on expiry of entry.
+     *
+     * @param key
+     *     key
+     *
+     * @return value, null for none
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.created > ttlNanos) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+
+        return entry.value;
+    }
+
+    /**
+     * Put value for input key, evicting least recently used entries as bounds require. A value weighing more
+     * than the cache can hold does not go in (but displaces any prior value for its key).
+     *
+     * @param key
+     *     key
+     * @param value
+     *     value
+     * @param valueWeight
+     *     weight of value
+     */
+    public synchronized void put(K key, V value, long valueWeight) {
+        remove(key);
+        if (maxEntries <= 0 || valueWeight > maxWeight) {
+            return;
+        }
+
+        entries.put(key, new Entry<>(value, valueWeight));
+        weight += valueWeight;
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (entries.size() > maxEntries || weight > maxWeight) {
+            weight -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    /**
+     * Remove entry for input key.
+     *
+     * @param key
+     *     key
+     *
+     * @return value removed, null for none
+     */
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        weight -= entry.weight;
+
+        return entry.value;
+    }
+
+    /**
+     * Remove entries with keys matching input predicate.
+     *
+     * @param predicate
+     *     predicate on keys
+     *
+     * @return number of entries removed
+     */
+    public synchronized int removeIf(Predicate<? super K> predicate) {
+        int rv = 0;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey())) {
+                weight -= e.getValue().weight;
+                it.remove();
+                rv++;
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Return number of entries.
+     *
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Return total weight of entries.
+     *
+     * @return total weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Return number of hits since construction.
+     *
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Return number of misses (including expired entries) since construction.
+     *
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static class Entry<V> {
+        private V value;
+        private long weight;
+        private long created = System.nanoTime();
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
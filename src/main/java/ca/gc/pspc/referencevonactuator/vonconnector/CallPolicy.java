@@ -0,0 +1,125 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <code>CallPolicy</code> encapsulates timeout and retry parameters for agent calls by message type (or for GET
+ * requests), from configuration properties <code>policy.&lt;name&gt;.*</code> where name is the message type slug
+ * or <code>get</code>, defaulting to <code>policy.default.*</code>:
+ * <ul>
+ *     <li><code>timeout-ms</code>: timeout on each attempt as a whole</li>
+ *     <li><code>max-attempts</code>: maximum attempts, applicable only to idempotent calls</li>
+ *     <li><code>backoff-ms</code>: base delay before second attempt, doubling per attempt thereafter</li>
+ *     <li><code>backoff-max-ms</code>: maximum delay between attempts</li>.
+ * </ul>
+ */
+public class CallPolicy {
+
+    private static Map<String, CallPolicy> policies = new ConcurrentHashMap<>();
+
+    private int timeoutMillis;
+    private int maxAttempts;
+    private long backoffMillis;
+    private long backoffMaxMillis;
+
+    /**
+     * Construct call policy.
+     *
+     * @param timeoutMillis
+     *     timeout (ms) on each attempt as a whole; 0 for none
+     * @param maxAttempts
+     *     maximum attempts
+     * @param backoffMillis
+     *     base delay (ms) before second attempt
+     * @param backoffMaxMillis
+     *     maximum delay (ms) between attempts
+     */
+    public CallPolicy(int timeoutMillis, int maxAttempts, long backoffMillis, long backoffMaxMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+    }
+
+    /**
+     * Return configured policy for input message type; only idempotent message types admit retries.
+     *
+     * @param msgType
+     *     message type
+     *
+     * @return call policy
+     */
+    public static CallPolicy forMessageType(MessageType msgType) {
+        return policies.computeIfAbsent(msgType.getSlug(), slug -> configured(slug, msgType.isIdempotent()));
+    }
+
+    /**
+     * Return configured policy for GET requests.
+     *
+     * @return call policy
+     */
+    public static CallPolicy forGet() {
+        return policies.computeIfAbsent("get", name -> configured(name, true));
+    }
+
+    private static CallPolicy configured(String name, boolean idempotent) {
+        Config cfg = Config.getInstance();
+        String pfx = String.format("policy.%s.", name);
+        return new CallPolicy(
+            cfg.getInt(pfx + "timeout-ms", cfg.getInt("policy.default.timeout-ms", 30000)),
+            idempotent ? cfg.getInt(pfx + "max-attempts", cfg.getInt("policy.default.max-attempts", 3)) : 1,
+            cfg.getLong(pfx + "backoff-ms", cfg.getLong("policy.default.backoff-ms", 200L)),
+            cfg.getLong(pfx + "backoff-max-ms", cfg.getLong("policy.default.backoff-max-ms", 5000L)));
+    }
+
+    /**
+     * Return timeout (ms) on each attempt as a whole.
+     *
+     * @return timeout
+     */
+    public int getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Return maximum attempts.
+     *
+     * @return maximum attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Return delay (ms) to wait after input failed attempt: exponential backoff with jitter, drawn uniformly
+     * from the upper half of the exponential delay.
+     *
+     * @param attempt
+     *     number of failed attempt, from 1
+     *
+     * @return delay before next attempt
+     */
+    public long backoffMillis(int attempt) {
+        long exp = backoffMillis << Math.min(attempt - 1, 20);
+        long ceiling = (exp < 0 || exp > backoffMaxMillis) ? backoffMaxMillis : exp;
+        return ceiling <= 1 ? ceiling : ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>CircuitBreaker</code> protects callers from a degraded agent. It tracks the outcomes of the agent's most
+ * recent calls and trips open when too many of them fail or run slow; while open, calls fail fast with
+ * <code>CircuitOpenException</code> and a background probe polls the agent's <code>did</code> endpoint, closing
+ * the breaker once the agent responds again. Configuration properties (<code>breaker.*</code>, or
+ * <code>agent.&lt;profile&gt;.breaker.*</code> per agent) are:
+ * <ul>
+ *     <li><code>window</code>: number of most recent calls to track</li>
+ *     <li><code>min-calls</code>: minimum calls tracked before breaker may trip</li>
+ *     <li><code>failure-rate-pct</code>: percentage of failed calls at which to trip</li>
+ *     <li><code>slow-call-ms</code>: duration at which a call counts as slow</li>
+ *     <li><code>slow-call-rate-pct</code>: percentage of slow calls at which to trip</li>
+ *     <li><code>probe-ms</code>: interval between probes while open</li>.
+ * </ul>
+ */
+public class CircuitBreaker {
+
+    private Agent agent;
+    private int minCalls;
+    private int failureRatePct;
+    private long slowCallNanos;
+    private int slowCallRatePct;
+    private long probeMillis;
+
+    private boolean[] failed;
+    private boolean[] slow;
+    private int next = 0;
+    private int count = 0;
+    private int failures = 0;
+    private int slows = 0;
+    private volatile boolean open = false;
+
+    /**
+     * Construct circuit breaker for input agent from configuration.
+     *
+     * @param agent
+     *     agent to protect
+     */
+    CircuitBreaker(Agent agent) {
+        this.agent = agent;
+        int window = Math.max(1, configured("window", 20));
+        this.minCalls = Math.min(window, Math.max(1, configured("min-calls", 10)));
+        this.failureRatePct = configured("failure-rate-pct", 50);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(configured("slow-call-ms", 20000));
+        this.slowCallRatePct = configured("slow-call-rate-pct", 80);
+        this.probeMillis = configured("probe-ms", 5000);
+        this.failed = new boolean[window];
+        this.slow = new boolean[window];
+    }
+
+    private int configured(String prop, int dflt) {
+        Config cfg = Config.getInstance();
+        return cfg.getInt(
+            String.format("agent.%s.breaker.%s", agent.toString(), prop),
+            cfg.getInt(String.format("breaker.%s", prop), dflt));
+    }
+
+    /**
+     * Return whether breaker is open (failing calls fast).
+     *
+     * @return whether open
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Fail fast if breaker is open.
+     *
+     * @throws CircuitOpenException if breaker is open
+     */
+    public void check() throws CircuitOpenException {
+        if (open) {
+            throw new CircuitOpenException(String.format("Circuit breaker open on agent [%s]", agent));
+        }
+    }
+
+    /**
+     * Return whether input exception from a call attests to failure at the agent: HTTP 4xx responses do not,
+     * the agent having answered.
+     *
+     * @param x
+     *     exception from call, null for success
+     *
+     * @return whether exception counts as agent failure
+     */
+    static boolean isFailure(IOException x) {
+        return (x != null) && !(x instanceof HttpStatusException && ((HttpStatusException)x).getStatus() < 500);
+    }
+
+    /**
+     * Record outcome of a call, tripping breaker if the calls tracked now fail or run slow too often.
+     *
+     * @param x
+     *     exception on failure, null for success; HTTP 4xx responses count as successes, the agent being healthy
+     * @param elapsedNanos
+     *     duration of call
+     */
+    public synchronized void record(IOException x, long elapsedNanos) {
+        if (open) {
+            return; // call predates trip
+        }
+
+        boolean isFailure = isFailure(x);
+        boolean isSlow = elapsedNanos >= slowCallNanos;
+        if (count == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slows -= slow[next] ? 1 : 0;
+        }
+        else {
+            count++;
+        }
+        failed[next] = isFailure;
+        slow[next] = isSlow;
+        failures += isFailure ? 1 : 0;
+        slows += isSlow ? 1 : 0;
+        next = (next + 1) % failed.length;
+
+        if (count >= minCalls
+                && (100 * failures >= failureRatePct * count || 100 * slows >= slowCallRatePct * count)) {
+            open = true;
+            System.out.println(String.format(
+                "WARN: Circuit breaker opens on agent [%s]: %d failed, %d slow of %d calls",
+                agent,
+                failures,
+                slows,
+                count));
+            probe();
+        }
+    }
+
+    private synchronized void close() {
+        next = count = failures = slows = 0;
+        open = false;
+    }
+
+    private void probe() {
+        AgentExecutor.getInstance().schedule(
+            () -> AgentExecutor.getInstance().submit(agent, agent::probe).whenComplete((rv, x) -> {
+                if (x == null) {
+                    close();
+                }
+                else {
+                    probe();
+                }
+            }),
+            probeMillis,
+            TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,331 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * <code>ClaimIndex</code> indexes the claims in a claims structure (at <code>["claims"]</code>) as HolderProver
+ * agent returns in response to POST <code>claims-request</code> message type, in one pass over its inner claims:
+ * <ul>
+ *     <li>referent to claim attributes (as a json dict of names to values)</li>
+ *     <li>referent to schema key</li>
+ *     <li>schema key to referents</li>
+ *     <li>attribute name and value to referents, on first need</li>.
+ * </ul>
+ * Filters then evaluate by set intersection over the index, rather than by scanning all inner claims per filter
+ * attribute. Since the attribute postings cost more to build than one scan, the index pays off only for filtering
+ * a claims structure repeatedly; <code>Util.claimsFor()</code> serves one-shot filtering. The index holds (does
+ * not copy) the attribute nodes of the claims structure.
+ */
+public class ClaimIndex {
+
+    /**
+     * Claims below which parallel construction proceeds sequentially regardless.
+     */
+    private static final int PARALLEL_MIN_CLAIMS = 1024;
+
+    private Map<String, JsonNode> attrsByReferent = new LinkedHashMap<>();
+    private Map<String, SchemaKey> schemaKeyByReferent = new HashMap<>();
+    private Map<SchemaKey, Set<String>> referentsBySchemaKey = new HashMap<>();
+    private volatile Map<String, Map<JsonNode, Set<String>>> referentsByAttrValue; // on first need
+    private final boolean parallel;
+
+    /**
+     * Construct index on claims structure.
+     *
+     * @param claimsNode
+     *     claims structure (at <code>["claims"]</code>) as HolderProver agent returns in response
+     *     to POST <code>claims-request</code> message type (see <code>Util.claimsFor()</code>)
+     */
+    public ClaimIndex(JsonNode claimsNode) {
+        this(claimsNode, false);
+    }
+
+    /**
+     * Construct index on claims structure, optionally indexing attribute values of large responses in parallel
+     * (in the common fork-join pool), values of each attribute name in a task of their own. The pass grouping
+     * inner claims by referent stays sequential: it makes one map insertion per inner claim, less work than
+     * merging per-task maps (and keeping referent order) would cost, whereas attribute postings cost the most
+     * and partition by attribute name into disjoint maps.
+     *
+     * @param claimsNode
+     *     claims structure (at <code>["claims"]</code>) as HolderProver agent returns in response
+     *     to POST <code>claims-request</code> message type (see <code>Util.claimsFor()</code>)
+     * @param parallel
+     *     whether to index in parallel, where there are enough claims
+     */
+    public ClaimIndex(JsonNode claimsNode, boolean parallel) {
+        this.parallel = parallel;
+        JsonNode uuid2claimsNode = claimsNode.get("attrs");
+        if (uuid2claimsNode == null) {
+            return;
+        }
+
+        List<JsonNode> schemaKeyNodes = new ArrayList<>(); // in referent order
+        for (JsonNode innerClaimsNode : uuid2claimsNode) {
+            for (JsonNode innerClaimNode : innerClaimsNode) {
+                String referent = innerClaimNode.get("referent").textValue();
+                if (attrsByReferent.putIfAbsent(referent, innerClaimNode.get("attrs")) == null) {
+                    schemaKeyNodes.add(innerClaimNode.get("schema_key")); // claim appears once per attribute
+                }
+            }
+        }
+
+        indexSchemaKeys(schemaKeyNodes);
+    }
+
+    /**
+     * Index schema keys by referent and referents by schema key.
+     *
+     * @param schemaKeyNodes
+     *     schema key nodes of claims, in referent order
+     */
+    private void indexSchemaKeys(List<JsonNode> schemaKeyNodes) {
+        Map<JsonNode, SchemaKey> schemaKeys = new HashMap<>(); // one SchemaKey per distinct schema_key node
+        Iterator<JsonNode> schemaKeyNodeIt = schemaKeyNodes.iterator();
+        for (String referent : attrsByReferent.keySet()) {
+            SchemaKey sKey = schemaKeys.computeIfAbsent(schemaKeyNodeIt.next(), n -> SchemaKey.of((ObjectNode)n));
+            schemaKeyByReferent.put(referent, sKey);
+            referentsBySchemaKey.computeIfAbsent(sKey, k -> new HashSet<>()).add(referent);
+        }
+    }
+
+    /**
+     * Return referents by attribute value by attribute name, indexing them on first call.
+     *
+     * @return referents by attribute value by attribute name
+     */
+    private Map<String, Map<JsonNode, Set<String>>> postings() {
+        Map<String, Map<JsonNode, Set<String>>> rv = referentsByAttrValue;
+        if (rv == null) {
+            synchronized (this) {
+                rv = referentsByAttrValue;
+                if (rv == null) {
+                    rv = indexAttrs();
+                    referentsByAttrValue = rv;
+                }
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Index referents by attribute value by attribute name.
+     *
+     * @return referents by attribute value by attribute name
+     */
+    private Map<String, Map<JsonNode, Set<String>>> indexAttrs() {
+        if (parallel && attrsByReferent.size() >= PARALLEL_MIN_CLAIMS) {
+            Set<String> attrNames = new HashSet<>();
+            attrsByReferent.values().forEach(attrsNode -> attrsNode.fieldNames().forEachRemaining(attrNames::add));
+            return attrNames.parallelStream().collect(Collectors.toMap(Function.identity(), this::indexAttr));
+        }
+
+        Map<String, Map<JsonNode, Set<String>>> rv = new HashMap<>();
+        for (Map.Entry<String, JsonNode> entry : attrsByReferent.entrySet()) {
+            Iterator<Map.Entry<String, JsonNode>> attrs = entry.getValue().fields();
+            while (attrs.hasNext()) {
+                Map.Entry<String, JsonNode> attr = attrs.next();
+                rv.computeIfAbsent(attr.getKey(), k -> new HashMap<>())
+                    .computeIfAbsent(attr.getValue(), v -> new HashSet<>())
+                    .add(entry.getKey());
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Index referents by value of input attribute.
+     *
+     * @param attr
+     *     attribute name
+     *
+     * @return referents by attribute value
+     */
+    private Map<JsonNode, Set<String>> indexAttr(String attr) {
+        Map<JsonNode, Set<String>> rv = new HashMap<>();
+        for (Map.Entry<String, JsonNode> entry : attrsByReferent.entrySet()) {
+            JsonNode value = entry.getValue().get(attr);
+            if (value != null) {
+                rv.computeIfAbsent(value, v -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return referents of claims indexed.
+     *
+     * @return referents
+     */
+    public Set<String> getReferents() {
+        return Collections.unmodifiableSet(attrsByReferent.keySet());
+    }
+
+    /**
+     * Return claim attributes for input referent.
+     *
+     * @param referent
+     *     referent
+     *
+     * @return json dict of claim attribute names to values, null for no such referent
+     */
+    public JsonNode getAttrs(String referent) {
+        return attrsByReferent.get(referent);
+    }
+
+    /**
+     * Return referents of claims on input schema.
+     *
+     * @param sKey
+     *     schema key
+     *
+     * @return referents, empty for none
+     */
+    public Set<String> getReferents(SchemaKey sKey) {
+        Set<String> rv = referentsBySchemaKey.get(sKey);
+        return rv == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(rv);
+    }
+
+    /**
+     * Return schema key of claim for input referent.
+     *
+     * @param referent
+     *     referent
+     *
+     * @return schema key, null for no such referent
+     */
+    public SchemaKey getSchemaKey(String referent) {
+        return schemaKeyByReferent.get(referent);
+    }
+
+    /**
+     * Return schema keys of claims indexed.
+     *
+     * @return schema keys
+     */
+    public Set<SchemaKey> getSchemaKeys() {
+        return Collections.unmodifiableSet(referentsBySchemaKey.keySet());
+    }
+
+    /**
+     * Return map from each input referent present to its schema key, as per <code>Util.schemaKeysFor()</code>.
+     *
+     * @param referents
+     *     referents of interest; null for all
+     *
+     * @return schema key per referent (empty Map if no such referents present)
+     */
+    public Map<String, SchemaKey> schemaKeysFor(Set<String> referents) {
+        if (referents == null) {
+            return new HashMap<>(schemaKeyByReferent);
+        }
+
+        Map<String, SchemaKey> rv = new HashMap<>();
+        for (String referent : referents) {
+            SchemaKey sKey = schemaKeyByReferent.get(referent);
+            if (sKey != null) {
+                rv.put(referent, sKey);
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return referents of claims with input attribute value.
+     *
+     * @param attr
+     *     attribute name
+     * @param value
+     *     attribute value, as json node
+     *
+     * @return referents, empty for none
+     */
+    public Set<String> getReferents(String attr, JsonNode value) {
+        Map<JsonNode, Set<String>> byValue = postings().get(attr);
+        Set<String> rv = (byValue == null) ? null : byValue.get(value);
+        return rv == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(rv);
+    }
+
+    /**
+     * Return referents of claims matching input filter: claims on any schema key in the filter, whose
+     * attributes include all the filter's attributes for that schema key with equal values.
+     *
+     * @param filt
+     *     map from schema key to json dict with schema attribute names and values to match; null to match all
+     *
+     * @return referents of matching claims
+     */
+    public Set<String> match(Map<SchemaKey, ObjectNode> filt) {
+        if (filt == null) {
+            return new HashSet<>(attrsByReferent.keySet());
+        }
+
+        Set<String> rv = new HashSet<>();
+        for (Map.Entry<SchemaKey, ObjectNode> schemaFilt : filt.entrySet()) {
+            Set<String> matches = referentsBySchemaKey.get(schemaFilt.getKey());
+            if (matches == null) {
+                continue;
+            }
+            matches = new HashSet<>(matches);
+            Iterator<Map.Entry<String, JsonNode>> filtAttrs = schemaFilt.getValue().fields();
+            while (!matches.isEmpty() && filtAttrs.hasNext()) {
+                Map.Entry<String, JsonNode> filtAttr = filtAttrs.next();
+                matches.retainAll(getReferents(filtAttr.getKey(), filtAttr.getValue()));
+            }
+            rv.addAll(matches);
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return presentable map from referents to claim attributes for claims matching input filter, as per
+     * <code>Util.claimsFor()</code>.
+     *
+     * @param filt
+     *     map from schema key to json dict with schema attribute names and values to match; null to match all
+     *
+     * @return map from referents of matching claims to json dicts of their attribute names and values
+     */
+    public Map<String, JsonNode> claimsFor(Map<SchemaKey, ObjectNode> filt) {
+        Map<String, JsonNode> rv = new HashMap<>();
+        for (String referent : match(filt)) {
+            rv.put(referent, attrsByReferent.get(referent));
+        }
+
+        return rv;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>ClaimRequestCache</code> holds responses to <code>claim-request</code> messages by HolderProver DID and
+ * canonical message arguments (schemata, claim filter, requested attributes), so that repeated identical requests
+ * make no network call. A HolderProver's responses stand until its claims change: <code>Agent</code> invalidates
+ * a HolderProver's entries on sending it <code>claim-store</code> or <code>claims-reset</code>. Configuration
+ * properties are:
+ * <ul>
+ *     <li><code>cache.claim-request.max-entries</code>: maximum number of responses to hold (0 to disable)</li>
+ *     <li><code>cache.claim-request.max-bytes</code>: maximum total size of responses to hold</li>
+ *     <li><code>cache.claim-request.ttl-ms</code>: time (ms) for responses to live; 0 for no expiry</li>.
+ * </ul>
+ */
+public class ClaimRequestCache {
+
+    private BoundedCache<List<String>, JsonNode> cache;
+    private Map<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+
+    /**
+     * Construct cache from configuration.
+     */
+    ClaimRequestCache() {
+        Config cfg = Config.getInstance();
+        this.cache = new BoundedCache<>(
+            cfg.getInt("cache.claim-request.max-entries", 256),
+            cfg.getLong("cache.claim-request.max-bytes", 16L << 20),
+            cfg.getLong("cache.claim-request.ttl-ms", 0L));
+    }
+
+    /**
+     * Return cache of responses, for monitoring (size, weight, hits, misses).
+     *
+     * @return underlying cache
+     */
+    public BoundedCache<List<String>, JsonNode> getCache() {
+        return cache;
+    }
+
+    /**
+     * Return cache key for input HolderProver DID and <code>claim-request</code> message arguments.
+     *
+     * @param holderDid
+     *     DID of HolderProver handling request
+     * @param args
+     *     message arguments: json nodes or their (<code>String</code>) json text
+     *
+     * @return key
+     */
+    List<String> keyFor(String holderDid, Object[] args) {
+        List<String> rv = new ArrayList<>(args.length + 1);
+        rv.add(holderDid);
+        for (Object arg : args) {
+            rv.add(canonical(arg));
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return current epoch of input HolderProver's claims, which advances on each invalidation. Callers fetching
+     * a response to cache take the epoch before sending the request.
+     *
+     * @param holderDid
+     *     DID of HolderProver
+     *
+     * @return epoch
+     */
+    long epoch(String holderDid) {
+        return epochs.computeIfAbsent(holderDid, k -> new AtomicLong()).get();
+    }
+
+    /**
+     * Return cached response for input key, null for none.
+     *
+     * @param key
+     *     key as per <code>keyFor()</code>
+     *
+     * @return response, null for none
+     */
+    JsonNode get(List<String> key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Cache response for input key, unless HolderProver's claims changed (i.e., its epoch advanced) since
+     * request went out.
+     *
+     * @param key
+     *     key as per <code>keyFor()</code>
+     * @param epoch
+     *     HolderProver's epoch as of request
+     * @param response
+     *     response
+     * @param bytes
+     *     size of response
+     */
+    void put(List<String> key, long epoch, JsonNode response, long bytes) {
+        synchronized (epochs) {
+            if (epoch(key.get(0)) == epoch) {
+                cache.put(key, response, bytes);
+            }
+        }
+    }
+
+    /**
+     * Drop cached responses of input HolderProver, its claims having changed or being about to.
+     *
+     * @param holderDid
+     *     DID of HolderProver
+     */
+    void invalidate(String holderDid) {
+        synchronized (epochs) {
+            epochs.computeIfAbsent(holderDid, k -> new AtomicLong()).incrementAndGet();
+            cache.removeIf(key -> key.get(0).equals(holderDid));
+        }
+    }
+
+    private static String canonical(Object arg) {
+        if (arg instanceof JsonNode) {
+            return JsonUtil.toCanonicalString((JsonNode)arg);
+        }
+        try {
+            return JsonUtil.toCanonicalString(JsonUtil.getDefaultMapper().readTree(String.valueOf(arg)));
+        }
+        catch (IOException x) {
+            return String.valueOf(arg); // not json: key on text as is
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <code>ConcurrencyLimit</code> adapts the number of calls an agent may have in flight to the agent's observed
+ * latency and errors, by additive increase and multiplicative decrease (AIMD): each call that succeeds within
+ * tolerance of its baseline latency raises the limit by the reciprocal of the limit (i.e., by about one
+ * per limit's worth of calls), and each call that fails or runs slow cuts it by the backoff ratio, at most once per
+ * cooldown period so that a burst of calls already in flight cuts it once. Each call type (e.g., message type)
+ * has a baseline of its own, since agents take far longer over some (e.g., proofs) than others: the baseline
+ * is a slow moving average of the latency of calls of the type within tolerance. Configuration properties
+ * (<code>limit.*</code>, or <code>agent.&lt;profile&gt;.limit.*</code> per agent) are:
+ * <ul>
+ *     <li><code>initial</code>: initial limit</li>
+ *     <li><code>min</code>: minimum limit</li>
+ *     <li><code>max</code>: maximum limit</li>
+ *     <li><code>backoff-pct</code>: percentage of limit to retain on failed or slow call</li>
+ *     <li><code>latency-tolerance-pct</code>: percentage of baseline latency beyond which a call is slow</li>
+ *     <li><code>decrease-cooldown-ms</code>: minimum interval (ms) between decreases</li>.
+ * </ul>
+ */
+public class ConcurrencyLimit {
+
+    private static final double BASELINE_WEIGHT = 0.05;
+
+    private int min;
+    private int max;
+    private double backoff;
+    private double tolerance;
+    private long cooldownNanos;
+
+    private double limit;
+    private Map<String, Double> baselineNanos = new HashMap<>();
+    private long lastDecreaseNanos;
+    private boolean decreased = false;
+
+    /**
+     * Construct concurrency limit for input agent profile from configuration.
+     *
+     * @param profile
+     *     agent profile
+     */
+    ConcurrencyLimit(String profile) {
+        Config cfg = Config.getInstance();
+        String pfx = String.format("agent.%s.limit.", profile);
+        this.min = Math.max(1, cfg.getInt(pfx + "min", cfg.getInt("limit.min", 1)));
+        this.max = Math.max(min, cfg.getInt(pfx + "max", cfg.getInt("limit.max", 16)));
+        this.limit = Math.min(max, Math.max(min, cfg.getInt(pfx + "initial", cfg.getInt("limit.initial", 4))));
+        this.backoff = cfg.getInt(pfx + "backoff-pct", cfg.getInt("limit.backoff-pct", 90)) / 100.0;
+        this.tolerance = cfg.getInt(
+            pfx + "latency-tolerance-pct",
+            cfg.getInt("limit.latency-tolerance-pct", 200)) / 100.0;
+        this.cooldownNanos = 1000000L * cfg.getLong(
+            pfx + "decrease-cooldown-ms",
+            cfg.getLong("limit.decrease-cooldown-ms", 1000L));
+    }
+
+    /**
+     * Return current limit on calls in flight.
+     *
+     * @return current limit
+     */
+    public synchronized int getLimit() {
+        return (int)limit;
+    }
+
+    /**
+     * Return baseline latency (ms) against which calls of input type count as slow, 0 before first sample.
+     *
+     * @param callType
+     *     call type
+     *
+     * @return baseline latency
+     */
+    public synchronized long getBaselineMillis(String callType) {
+        Double rv = baselineNanos.get(callType);
+        return rv == null ? 0L : (long)(rv / 1000000.0);
+    }
+
+    /**
+     * Adjust limit on outcome of a call.
+     *
+     * @param callType
+     *     call type (e.g., message type slug), to compare latency against baseline for calls of its type
+     * @param failed
+     *     whether call failed at the agent (as opposed to an HTTP 4xx response, which attests to the agent's health)
+     * @param elapsedNanos
+     *     duration of call
+     */
+    public void record(String callType, boolean failed, long elapsedNanos) {
+        record(callType, failed, elapsedNanos, System.nanoTime());
+    }
+
+    /**
+     * Adjust limit on outcome of a call, as per <code>record(String, boolean, long)</code>, as of input time.
+     *
+     * @param callType
+     *     call type
+     * @param failed
+     *     whether call failed at the agent
+     * @param elapsedNanos
+     *     duration of call
+     * @param nowNanos
+     *     current time, as <code>System.nanoTime()</code> gives
+     */
+    synchronized void record(String callType, boolean failed, long elapsedNanos, long nowNanos) {
+        Double baseline = baselineNanos.get(callType);
+        boolean slow = baseline != null && elapsedNanos > tolerance * baseline;
+        if (failed || slow) {
+            if (!decreased || nowNanos - lastDecreaseNanos >= cooldownNanos) {
+                limit = Math.max(min, limit * backoff);
+                lastDecreaseNanos = nowNanos;
+                decreased = true;
+            }
+        }
+        else {
+            limit = Math.min(max, limit + 1.0 / limit);
+            baselineNanos.put(callType, (baseline == null)
+                ? elapsedNanos
+                : (1.0 - BASELINE_WEIGHT) * baseline + BASELINE_WEIGHT * elapsedNanos);
+        }
+    }
+}
@@ -88,6 +88,40 @@ public class Config {
         return props.getProperty(prop);
     }
 
+    /**
+     * Return (<code>int</code>) value of input property, default value if not present.
+     *
+     * @param prop
+     *     name of property to return
+     * @param dflt
+     *     value to return if property is not present
+     *
+     * @return value of property named
+     *
+     * @throws NumberFormatException if property is present but not an integer
+     */
+    public int getInt(String prop, int dflt) {
+        String value = props.getProperty(prop);
+        return value == null ? dflt : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Return (<code>long</code>) value of input property, default value if not present.
+     *
+     * @param prop
+     *     name of property to return
+     * @param dflt
+     *     value to return if property is not present
+     *
+     * @return value of property named
+     *
+     * @throws NumberFormatException if property is present but not an integer
+     */
+    public long getLong(String prop, long dflt) {
+        String value = props.getProperty(prop);
+        return value == null ? dflt : Long.parseLong(value.trim());
+    }
+
     /**
      * Return <code>Properties</code> subset of configuration with names starting with input prefix;
      * omit prefix in returned property names.
@@ -0,0 +1,131 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>Deadline</code> bounds the time available to a sequence of agent calls. Entering a deadline makes it
+ * current for the thread (or keeps any earlier enclosing deadline), so that agent calls nested within it,
+ * including asynchronous calls submitted from it, cap their timeouts and retries by the time remaining:
+ *
+ * <pre>
+ *     Deadline.Scope scope = Deadline.after(20, TimeUnit.SECONDS).enter();
+ *     try {
+ *         ... agent calls ...
+ *     }
+ *     finally {
+ *         scope.close();
+ *     }
+ * </pre>
+ *
+ * (A try-with-resources statement serves as well, but draws a lint warning since its body does not refer to
+ * the scope.) Awaiting futures of asynchronous calls needs no deadline of its own: the calls fail on expiry.
+ */
+public class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private long expiryNanos;
+
+    private Deadline(long expiryNanos) {
+        this.expiryNanos = expiryNanos;
+    }
+
+    /**
+     * Return deadline expiring after input duration from now.
+     *
+     * @param duration
+     *     time until expiry
+     * @param unit
+     *     time unit of duration
+     *
+     * @return deadline
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * Return deadline current for calling thread, null for none.
+     *
+     * @return current deadline
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Return time remaining (ms) before expiry, zero if expired.
+     *
+     * @return time remaining
+     */
+    public long remainingMillis() {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(expiryNanos - System.nanoTime()));
+    }
+
+    /**
+     * Return whether deadline has expired.
+     *
+     * @return whether expired
+     */
+    public boolean isExpired() {
+        return expiryNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Make current deadline current for calling thread, unless an earlier deadline already is, until scope closes.
+     *
+     * @return scope to close on leaving deadline
+     */
+    public Scope enter() {
+        return enter(this);
+    }
+
+    /**
+     * Make input deadline current for calling thread, unless an earlier deadline already is, until scope closes.
+     *
+     * @param deadline
+     *     deadline to enter; null to leave any current deadline in place
+     *
+     * @return scope to close on leaving deadline
+     */
+    public static Scope enter(Deadline deadline) {
+        Deadline prior = CURRENT.get();
+        if (deadline != null && (prior == null || deadline.expiryNanos - prior.expiryNanos < 0)) {
+            CURRENT.set(deadline);
+        }
+
+        return () -> {
+            if (prior == null) {
+                CURRENT.remove();
+            }
+            else {
+                CURRENT.set(prior);
+            }
+        };
+    }
+
+    /**
+     * <code>Scope</code> restores the deadline in place before entry when it closes.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+
+/**
+ * <code>HttpStatusException</code> signals that an agent responded with an HTTP status other than 200.
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private int status;
+
+    /**
+     * Construct exception on message and HTTP status.
+     *
+     * @param msg
+     *     message
+     * @param status
+     *     HTTP status code in response
+     */
+    public HttpStatusException(String msg, int status) {
+        super(msg);
+        this.status = status;
+    }
+
+    /**
+     * Return HTTP status code in response.
+     *
+     * @return HTTP status code
+     */
+    public int getStatus() {
+        return status;
+    }
+}
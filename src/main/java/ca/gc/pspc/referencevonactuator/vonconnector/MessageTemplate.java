@@ -0,0 +1,318 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonLoadException;
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>MessageTemplate</code> holds a protocol message template compiled for repeated interpolation: the template
+ * text split at its <code>%s</code> markers (with <code>%%</code> standing for a literal <code>%</code>, as per
+ * <code>String.format</code>). Templates load from file <code>&lt;slug&gt;.json</code> in the directory that
+ * configuration property <code>protocol.dir</code> specifies if present there, from classpath resource
+ * <code>von-connector/protocol/&lt;slug&gt;.json</code> otherwise, so that they load from a packaged jar.
+ *
+ * A template whose markers each stand for a whole json value (bare, or quoted as a string) also compiles to a
+ * skeleton json tree, with the location of each marker in it, so as to build messages from json node arguments
+ * by slotting them into a copy of the skeleton rather than by interpolating text and parsing the result.
+ */
+class MessageTemplate {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String PLACEHOLDER = "\\u0000"; // json escape for NUL, which no template holds
+
+    private String slug;
+    private String[] segments;
+    private JsonNode skeleton = null;
+    private Slot[] slots = null;
+
+    /**
+     * Load and compile template for input slug, validating that it makes json with its markers filled.
+     *
+     * @param slug
+     *     message type slug
+     *
+     * @throws JsonLoadException
+     *     in case of missing or corrupt template
+     */
+    MessageTemplate(String slug) throws JsonLoadException {
+        this.slug = slug;
+        String template = load(slug);
+
+        List<String> split = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '%' && i + 1 < template.length()) {
+                char next = template.charAt(++i);
+                if (next == 's') {
+                    split.add(segment.toString());
+                    segment.setLength(0);
+                    continue;
+                }
+                else if (next == '%') {
+                    segment.append('%');
+                    continue;
+                }
+                throw new JsonLoadException(String.format(
+                    "Protocol template [%s] has unsupported format specifier %%%c", slug, next));
+            }
+            segment.append(c);
+        }
+        split.add(segment.toString());
+        this.segments = split.toArray(new String[split.size()]);
+
+        Object[] zeros = new Object[getArgCount()];
+        Arrays.fill(zeros, 0);
+        try {
+            if (!JsonUtil.getDefaultMapper().readTree(fill(zeros)).isObject()) {
+                throw new JsonLoadException(String.format("Protocol template [%s] is not a json object", slug));
+            }
+        }
+        catch (IOException x) {
+            throw new JsonLoadException(String.format("Protocol template [%s] is not valid json", slug), x);
+        }
+
+        compileSkeleton();
+    }
+
+    /**
+     * Parse template with distinct placeholder strings for its markers into skeleton tree, and locate each
+     * placeholder in it. Leave skeleton null if any marker does not stand for a whole json value (e.g., if
+     * it makes up only part of a string), so that <code>build()</code> falls back to interpolation.
+     */
+    private void compileSkeleton() {
+        boolean[] quoted = new boolean[getArgCount()];
+        Object[] placeholders = new Object[getArgCount()];
+        for (int i = 0; i < quoted.length; i++) {
+            quoted[i] = segments[i].endsWith("\"") && segments[i + 1].startsWith("\"");
+            placeholders[i] = quoted[i]
+                ? String.format("%s%d", PLACEHOLDER, i)
+                : String.format("\"%s%d\"", PLACEHOLDER, i);
+        }
+
+        JsonNode parsed;
+        try {
+            parsed = JsonUtil.getDefaultMapper().readTree(fill(placeholders));
+        }
+        catch (IOException x) {
+            return;
+        }
+
+        Slot[] found = new Slot[getArgCount()];
+        locate(parsed, new ArrayList<>(), quoted, found);
+        for (Slot slot : found) {
+            if (slot == null) {
+                return;
+            }
+        }
+        this.skeleton = parsed;
+        this.slots = found;
+    }
+
+    private static void locate(JsonNode node, List<Object> path, boolean[] quoted, Slot[] found) {
+        if (node.isObject()) {
+            node.fields().forEachRemaining(e -> locateChild(e.getValue(), e.getKey(), path, quoted, found));
+        }
+        else if (node.isArray()) {
+            for (int i = 0; i < node.size(); i++) {
+                locateChild(node.get(i), i, path, quoted, found);
+            }
+        }
+    }
+
+    private static void locateChild(JsonNode child, Object step, List<Object> path, boolean[] quoted, Slot[] found) {
+        String text = child.isTextual() ? child.textValue() : null;
+        if (text != null && text.length() > 1 && text.charAt(0) == '\0') {
+            int i = Integer.parseInt(text.substring(1));
+            found[i] = new Slot(path.toArray(), step, quoted[i]);
+        }
+        else {
+            path.add(step);
+            locate(child, path, quoted, found);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * Return json object with input json nodes in place of template markers, in order. Nodes go into the message
+     * as they are, without copying. Nodes for quoted markers go in as text (their text values if textual, their
+     * json otherwise). Extra arguments are ignored.
+     *
+     * @param args
+     *     json nodes to slot into message; null for json null
+     *
+     * @return message
+     *
+     * @throws IOException
+     *     if template has no skeleton and its interpolation is not valid json
+     * @throws IllegalArgumentException
+     *     if template takes more arguments than input
+     */
+    ObjectNode build(JsonNode... args) throws IOException {
+        if (skeleton == null) {
+            return (ObjectNode)JsonUtil.getDefaultMapper().readTree(fill((Object[])args));
+        }
+        if (args.length < getArgCount()) {
+            throw new IllegalArgumentException(String.format(
+                "Protocol template [%s] takes %d arguments, got %d", slug, getArgCount(), args.length));
+        }
+
+        ObjectNode rv = (ObjectNode)skeleton.deepCopy();
+        for (int i = 0; i < slots.length; i++) {
+            JsonNode arg = args[i];
+            if (arg == null) {
+                arg = slots[i].quoted ? TextNode.valueOf("null") : NullNode.getInstance();
+            }
+            else if (slots[i].quoted && !arg.isTextual()) {
+                arg = TextNode.valueOf(arg.isValueNode() ? arg.asText() : arg.toString());
+            }
+            slots[i].set(rv, arg);
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return number of arguments that template takes.
+     *
+     * @return number of <code>%s</code> markers
+     */
+    int getArgCount() {
+        return segments.length - 1;
+    }
+
+    /**
+     * Return template text with input arguments substituted for its markers, in order. Extra arguments are
+     * ignored, as per <code>String.format</code>.
+     *
+     * @param tplArgs
+     *     arguments for interpolation
+     *
+     * @return interpolated text
+     *
+     * @throws IllegalArgumentException
+     *     if template takes more arguments than input
+     */
+    String fill(Object... tplArgs) {
+        if (tplArgs.length < getArgCount()) {
+            throw new IllegalArgumentException(String.format(
+                "Protocol template [%s] takes %d arguments, got %d", slug, getArgCount(), tplArgs.length));
+        }
+
+        StringBuilder rv = new StringBuilder(segments[0]);
+        for (int i = 1; i < segments.length; i++) {
+            rv.append(String.valueOf(tplArgs[i - 1])).append(segments[i]);
+        }
+
+        return rv.toString();
+    }
+
+    /**
+     * <code>Slot</code> locates a template marker in the skeleton tree: by the path of field names and array
+     * indices to its container, and its field name or index in the container.
+     */
+    private static class Slot {
+        private Object[] path;
+        private Object step;
+        private boolean quoted;
+
+        Slot(Object[] path, Object step, boolean quoted) {
+            this.path = path;
+            this.step = step;
+            this.quoted = quoted;
+        }
+
+        void set(JsonNode root, JsonNode value) {
+            JsonNode container = root;
+            for (Object p : path) {
+                container = (p instanceof String) ? container.get((String)p) : container.get((Integer)p);
+            }
+            if (step instanceof String) {
+                ((ObjectNode)container).set((String)step, value);
+            }
+            else {
+                ((ArrayNode)container).set((Integer)step, value);
+            }
+        }
+    }
+
+    /**
+     * Return text of template for input slug, from protocol directory if configured and present there,
+     * from classpath otherwise.
+     *
+     * @param slug
+     *     message type slug
+     *
+     * @return template text
+     *
+     * @throws JsonLoadException
+     *     in case of missing or unreadable template
+     */
+    private static String load(String slug) throws JsonLoadException {
+        String fileName = String.format("%s.json", slug);
+        try {
+            String dir = Config.getInstance().get("protocol.dir");
+            if (dir != null) {
+                Path p = Paths.get(dir, fileName);
+                if (Files.isRegularFile(p)) {
+                    return new String(Files.readAllBytes(p), StandardCharsets.UTF_8);
+                }
+            }
+
+            InputStream input = Thread
+                .currentThread()
+                .getContextClassLoader()
+                .getResourceAsStream(String.format("von-connector/protocol/%s", fileName));
+            if (input == null) {
+                throw new JsonLoadException(String.format("No protocol template found for [%s]", slug));
+            }
+            try {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buf = new byte[BUFFER_SIZE];
+                for (int n; (n = input.read(buf)) > 0; ) {
+                    content.write(buf, 0, n);
+                }
+                return new String(content.toByteArray(), StandardCharsets.UTF_8);
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (IOException x) {
+            throw new JsonLoadException(x);
+        }
+    }
+}
@@ -17,11 +17,6 @@ limitations under the License.
 package ca.gc.pspc.referencevonactuator.vonconnector;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -33,30 +28,33 @@ import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
  * <code>MessageType</code> enum encapsulates operations and attributes particular to message types in scope.
  */
 public enum MessageType {
-    CLAIMS_RESET("claims-reset", false),
-    CLAIM_OFFER_CREATE("claim-offer-create", true),
-    CLAIM_OFFER_STORE("claim-offer-store", true),
-    CLAIM_CREATE("claim-create", true),
-    CLAIM_STORE("claim-store", true),
-    CLAIM_REQUEST("claim-request", true),
-    PROOF_REQUEST("proof-request", true),
-    PROOF_REQUEST_BY_REFERENT("proof-request-by-referent", true),
-    SCHEMA_LOOKUP("schema-lookup", true),
-    VERIFICATION_REQUEST("verification-request", true);
+    CLAIMS_RESET("claims-reset", false, false),
+    CLAIM_OFFER_CREATE("claim-offer-create", true, false),
+    CLAIM_OFFER_STORE("claim-offer-store", true, false),
+    CLAIM_CREATE("claim-create", true, false),
+    CLAIM_STORE("claim-store", true, false),
+    CLAIM_REQUEST("claim-request", true, true),
+    PROOF_REQUEST("proof-request", true, false),
+    PROOF_REQUEST_BY_REFERENT("proof-request-by-referent", true, false),
+    SCHEMA_LOOKUP("schema-lookup", true, true),
+    VERIFICATION_REQUEST("verification-request", true, true);
 
     private String slug;
     private boolean mayProxy;
+    private boolean idempotent;
+    private MessageTemplate template = null;
 
-    private MessageType(String slug, boolean mayProxy) {
+    private MessageType(String slug, boolean mayProxy, boolean idempotent) {
         this.slug = slug;
         this.mayProxy = mayProxy;
+        this.idempotent = idempotent;
     }
 
     /**
      * Return slug identifying current message type in:
      * <ul>
      *     <li>URLs</li>
-     *     <li>template files from <code>protocol/</code> directory</li>.
+     *     <li>template files from <code>protocol/</code> directory (see <code>MessageTemplate</code>)</li>.
      * </ul>
      * 
      * @return slug
@@ -65,9 +63,49 @@ public enum MessageType {
         return slug;
     }
 
+    /**
+     * Return whether repeating current message type is safe (i.e., free of side effects at the agent), so that
+     * calls may retry it on failure.
+     *
+     * @return whether idempotent
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Load, compile, and validate templates for all message types, so that any missing or corrupt template
+     * surfaces at startup rather than on first use. Templates load once; subsequent calls are no-ops.
+     *
+     * @throws JsonLoadException
+     *     in case of missing or corrupt template
+     */
+    public static void loadTemplates() throws JsonLoadException {
+        for (MessageType msgType : values()) {
+            msgType.getTemplate();
+        }
+    }
+
+    /**
+     * Return compiled template for current message type, loading it on first call.
+     *
+     * @return compiled template
+     *
+     * @throws JsonLoadException
+     *     in case of missing or corrupt template
+     */
+    synchronized MessageTemplate getTemplate() throws JsonLoadException {
+        if (template == null) {
+            template = new MessageTemplate(slug);
+        }
+
+        return template;
+    }
+
     /**
      * Marshall json node for current message type with specification for input proxy DID
-     * and arguments for interpolation.
+     * and arguments for interpolation. This text-based form remains for compatibility: callers holding
+     * json nodes should pass them as such, to slot them into the message without serializing and reparsing.
      *
      * @param proxyDid
      *     DID of agent to which to proxy (null for none, handling directly)
@@ -77,33 +115,57 @@ public enum MessageType {
      * @return json node with complete message
      * 
      * @throws JsonLoadException
-     *     in case of missing or corrupt template file, or inability to marshall message to json node 
+     *     in case of missing or corrupt template file, or inability to marshall message to json node
+     * @throws IllegalArgumentException
+     *     if template takes more arguments than input
      */
     public JsonNode form(String proxyDid, Object... tplArgs) throws JsonLoadException {
-        JsonNode rv = null;
-        URL protoTplLoc = Thread.currentThread().getContextClassLoader().getResource(String.format(
-            "von-connector/protocol/%s.json", slug));
+        try {
+            return proxied((ObjectNode)JsonUtil.getDefaultMapper().readTree(getTemplate().fill(tplArgs)), proxyDid);
+        }
+        catch (IOException x) {
+            throw new JsonLoadException(x);
+        }
+    }
 
+    /**
+     * Build json node for current message type with specification for input proxy DID, slotting input json nodes
+     * into the message tree in place of template markers (in order). Nodes go into the message as they are, not
+     * copied; nodes in place of quoted markers (e.g., <code>"%s"</code>) go in as text.
+     *
+     * @param proxyDid
+     *     DID of agent to which to proxy (null for none, handling directly)
+     * @param args
+     *     json nodes for template markers
+     *
+     * @return json node with complete message
+     *
+     * @throws JsonLoadException
+     *     in case of missing or corrupt template file
+     * @throws IllegalArgumentException
+     *     if template takes more arguments than input
+     */
+    public JsonNode form(String proxyDid, JsonNode... args) throws JsonLoadException {
         try {
-            Path p = Paths.get(protoTplLoc.toURI());
-            String template = new String(Files.readAllBytes(p));
-            ObjectNode objNode = (ObjectNode)JsonUtil.getDefaultMapper().readTree(String.format(template, tplArgs));
-            if (proxyDid != null) {
-                if (mayProxy) {
-                    ObjectNode proxy = (ObjectNode)objNode.get("data");
-                    proxy.put("proxy-did", proxyDid);
-                }
-                else {
-                    System.out.println(String.format(
-                        "WARN: Message type [%s] does not accept proxy-did [%s]", slug, proxyDid));
-                }
-            }
-            rv = (JsonNode)objNode;
+            return proxied(getTemplate().build(args), proxyDid);
         }
-        catch (URISyntaxException | IOException x) {
+        catch (IOException x) {
             throw new JsonLoadException(x);
         }
+    }
+
+    private JsonNode proxied(ObjectNode objNode, String proxyDid) {
+        if (proxyDid != null) {
+            if (mayProxy) {
+                ObjectNode proxy = (ObjectNode)objNode.get("data");
+                proxy.put("proxy-did", proxyDid);
+            }
+            else {
+                System.out.println(String.format(
+                    "WARN: Message type [%s] does not accept proxy-did [%s]", slug, proxyDid));
+            }
+        }
 
-        return rv;
+        return (JsonNode)objNode;
     }
 }
@@ -0,0 +1,409 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>PooledTransport</code> is the default <code>AgentTransport</code>: it bounds the connections open to each
+ * host and keeps them alive for reuse across messages, rather than paying a TCP handshake per message.
+ *
+ * The JDK keep-alive cache holds the idle connections; this class caps connections in use per host, configures
+ * the cache from <code>von-connector/config.properties</code>, and fully drains every response so that its
+ * connection returns to the cache, or disconnecting it instead once its generation outlives its TTL.
+ * Configuration properties are:
+ * <ul>
+ *     <li><code>transport.pool.max-connections</code>: maximum connections per host, in use or idle</li>
+ *     <li><code>transport.pool.idle-timeout-ms</code>: idle time after which to evict a connection</li>
+ *     <li><code>transport.pool.ttl-ms</code>: lifetime after which to retire connections to a host</li>
+ *     <li><code>transport.request.chunk-length</code>: chunk length for streaming request bodies; 0 to buffer
+ *         each body and send it with its content length instead</li>.
+ * </ul>
+ *
+ * Request bodies serialize straight onto the connection, never materializing as strings, compressing as per
+ * any <code>Content-Encoding</code> request header; compressed responses decompress as they stream in.
+ *
+ * A timeout bounds the whole exchange, not just each read: a watchdog disconnects any connection still exchanging
+ * when it expires, so that a response trickling in under the socket read timeout cannot outrun it.
+ */
+public class PooledTransport implements AgentTransport {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static PooledTransport theInstance = null;
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "von-transport-watchdog");
+        t.setDaemon(true); // do not hold up JVM exit
+        return t;
+    });
+
+    private int maxConnections;
+    private long idleTimeoutMillis;
+    private long ttlMillis;
+    private int chunkLength;
+    private Map<String, HostPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Return the instance, populating it from configuration first if necessary.
+     *
+     * @return the instance
+     */
+    synchronized static public PooledTransport getInstance() {
+        if (theInstance == null) {
+            Config cfg = Config.getInstance();
+            theInstance = new PooledTransport(
+                cfg.getInt("transport.pool.max-connections", 8),
+                cfg.getLong("transport.pool.idle-timeout-ms", 30000L),
+                cfg.getLong("transport.pool.ttl-ms", 300000L),
+                cfg.getInt("transport.request.chunk-length", 8192));
+        }
+
+        return theInstance;
+    }
+
+    /**
+     * Construct transport on pool parameters. The JDK reads its keep-alive settings once, on first connection,
+     * so the first instance constructed before any connection determines them unless set as system properties.
+     *
+     * @param maxConnections
+     *     maximum connections per host
+     * @param idleTimeoutMillis
+     *     idle time (ms) after which to evict a connection
+     * @param ttlMillis
+     *     lifetime (ms) after which to retire connections to a host; 0 for no limit
+     * @param chunkLength
+     *     chunk length for streaming request bodies; 0 to buffer each body and send it with its content length
+     */
+    public PooledTransport(int maxConnections, long idleTimeoutMillis, long ttlMillis, int chunkLength) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(String.format(
+                "Transport pool requires at least one connection per host; [%d] fails",
+                maxConnections));
+        }
+        this.maxConnections = maxConnections;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.ttlMillis = ttlMillis;
+        this.chunkLength = chunkLength;
+
+        setPropertyIfAbsent("http.keepAlive", "true");
+        setPropertyIfAbsent("http.maxConnections", Integer.toString(maxConnections));
+        setPropertyIfAbsent("http.keepAlive.time.server", Long.toString(Math.max(1L, (idleTimeoutMillis + 999) / 1000)));
+    }
+
+    /**
+     * Return maximum connections per host.
+     *
+     * @return maximum connections per host
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Return idle time (ms) after which to evict a connection.
+     *
+     * @return idle timeout
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Return lifetime (ms) after which to retire connections to a host.
+     *
+     * @return connection TTL
+     */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Return chunk length for streaming request bodies (0 for none).
+     *
+     * @return chunk length
+     */
+    public int getChunkLength() {
+        return chunkLength;
+    }
+
+    @Override
+    public <T> T exchange(
+            HttpMethod method,
+            URL url,
+            Map<String, String> headers,
+            Object body,
+            ResponseHandler<T> handler,
+            int timeoutMillis) throws IOException {
+        long start = System.nanoTime();
+        HostPool pool = pools.computeIfAbsent(url.getAuthority(), k -> new HostPool(maxConnections));
+        try {
+            if (timeoutMillis > 0) {
+                if (!pool.permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SocketTimeoutException(String.format("Timed out awaiting connection to [%s]", url));
+                }
+            }
+            else {
+                pool.permits.acquire();
+            }
+        }
+        catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Interrupted awaiting connection to [%s]", url));
+        }
+
+        ScheduledFuture<?> watchdog = null;
+        AtomicBoolean expired = new AtomicBoolean();
+        try {
+            Map<String, String> reqHeaders = new HashMap<>();
+            if (headers != null) {
+                reqHeaders.putAll(headers);
+            }
+            boolean retire = pool.retire(System.currentTimeMillis(), ttlMillis);
+            HttpURLConnection con = method.getConn(url, reqHeaders);
+            if (timeoutMillis > 0) {
+                // awaiting a connection counts against the timeout too
+                int remaining = (int)Math.max(
+                    1L,
+                    timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                con.setConnectTimeout(remaining);
+                con.setReadTimeout(remaining);
+                watchdog = WATCHDOG.schedule(() -> {
+                    expired.set(true);
+                    con.disconnect(); // fails any connect, write, or read in progress
+                }, remaining, TimeUnit.MILLISECONDS);
+            }
+            if (body != null) {
+                if (chunkLength > 0) {
+                    con.setChunkedStreamingMode(chunkLength);
+                }
+                OutputStream out = encode(con.getOutputStream(), reqHeaders.get("Content-Encoding"));
+                try (JsonGenerator gen = JsonUtil.getDefaultMapper().getFactory().createGenerator(
+                        out,
+                        JsonEncoding.UTF8)) {
+                    JsonUtil.getCompactWriter().writeValue(gen, body);
+                }
+            }
+
+            int httpRc = con.getResponseCode();
+            if (httpRc != 200) {
+                drain(con.getErrorStream(), retire ? con : null);
+                throw new HttpStatusException(
+                    String.format("Agent at [%s] returned HTTP %d", url.getAuthority(), httpRc),
+                    httpRc);
+            }
+
+            InputStream in = con.getInputStream();
+            InputStream decoded = null;
+            try {
+                decoded = decode(in, con.getContentEncoding());
+                try (JsonParser parser = JsonUtil.getDefaultMapper().getFactory().createParser(decoded)) {
+                    parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE); // drain below, for connection reuse
+                    return handler.handle(parser);
+                }
+            }
+            finally {
+                drain(in, retire ? con : null);
+                if (decoded != null) {
+                    decoded.close(); // release inflater
+                }
+            }
+        }
+        catch (IOException x) {
+            if (expired.get()) {
+                SocketTimeoutException timeout = new SocketTimeoutException(String.format(
+                    "Timed out after %d ms exchanging with [%s]",
+                    timeoutMillis,
+                    url));
+                timeout.initCause(x);
+                throw timeout;
+            }
+            throw x;
+        }
+        finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * Wrap input (request) stream to compress by input content encoding.
+     *
+     * @param out
+     *     stream to wrap
+     * @param encoding
+     *     content encoding (<code>gzip</code>, <code>deflate</code>); null for none
+     *
+     * @return stream compressing by content encoding
+     */
+    private static OutputStream encode(OutputStream out, String encoding) throws IOException {
+        if (encoding == null || encoding.equalsIgnoreCase("identity")) {
+            return out;
+        }
+        if (encoding.equalsIgnoreCase("gzip")) {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        if (encoding.equalsIgnoreCase("deflate")) {
+            return new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE, false) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    }
+                    finally {
+                        def.end(); // stream does not end a deflater it did not create: release native memory
+                    }
+                }
+            };
+        }
+        throw new IOException(String.format("Unsupported request content encoding [%s]", encoding));
+    }
+
+    /**
+     * Wrap input (response) stream to decompress by input content encoding.
+     *
+     * @param in
+     *     stream to wrap
+     * @param encoding
+     *     content encoding (<code>gzip</code>, <code>x-gzip</code>, <code>deflate</code>); null for none
+     *
+     * @return stream decompressing by content encoding
+     */
+    private static InputStream decode(InputStream in, String encoding) throws IOException {
+        if (encoding == null || encoding.equalsIgnoreCase("identity")) {
+            return in;
+        }
+        if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        if (encoding.equalsIgnoreCase("deflate")) {
+            return new InflaterInputStream(in, new Inflater(), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    }
+                    finally {
+                        inf.end(); // stream does not end an inflater it did not create: release native memory
+                    }
+                }
+            };
+        }
+        throw new IOException(String.format("Unsupported response content encoding [%s]", encoding));
+    }
+
+    /**
+     * Read input stream to its end and close it, so that its connection may return to the keep-alive cache;
+     * or, to retire the connection, disconnect it instead of closing the stream. The JDK ignores any
+     * <code>Connection</code> request header, and disconnecting only closes the cached connection while the
+     * stream is still open.
+     *
+     * @param in
+     *     stream to drain (null for none)
+     * @param retired
+     *     connection to disconnect, null to keep alive
+     */
+    private static void drain(InputStream in, HttpURLConnection retired) throws IOException {
+        if (in == null) {
+            if (retired != null) {
+                retired.disconnect();
+            }
+            return;
+        }
+        byte[] buf = new byte[BUFFER_SIZE];
+        try {
+            while (in.read(buf) >= 0) {
+                // discard
+            }
+        }
+        finally {
+            if (retired != null) {
+                retired.disconnect(); // closes stream, returning connection to cache, then closes it there
+            }
+            else {
+                in.close();
+            }
+        }
+    }
+
+    private static void setPropertyIfAbsent(String prop, String value) {
+        if (System.getProperty(prop) == null) {
+            System.setProperty(prop, value);
+        }
+    }
+
+    /**
+     * <code>HostPool</code> bounds connections to one host and tracks the age of its connection generation.
+     */
+    private static class HostPool {
+        private Semaphore permits;
+        private int size;
+        private long epoch;
+        private int toRetire = 0;
+
+        HostPool(int maxConnections) {
+            permits = new Semaphore(maxConnections, true);
+            size = maxConnections;
+            epoch = System.currentTimeMillis();
+        }
+
+        /**
+         * Return whether to disconnect the connection for the current request: once the current connection generation
+         * outlives its TTL, the next requests up to the pool size close theirs, to retire every cached connection.
+         */
+        synchronized boolean retire(long now, long ttlMillis) {
+            if (ttlMillis > 0 && now - epoch >= ttlMillis) {
+                epoch = now;
+                toRetire = size;
+            }
+            if (toRetire > 0) {
+                toRetire--;
+                return true;
+            }
+            return false;
+        }
+    }
+}
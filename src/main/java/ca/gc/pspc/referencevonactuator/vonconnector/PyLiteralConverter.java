@@ -0,0 +1,485 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>PyLiteralConverter</code> converts a python literal (as <code>repr()</code> or <code>pprint</code> emit,
+ * e.g., a dict from the GBC org book <code>claimJSON</code>) to json in one pass over its characters, writing
+ * json tokens to a generator as it reads. It supports:
+ * <ul>
+ *     <li>dicts, to json objects (non-string keys convert to field names as python <code>json.dumps()</code>
+ *         does)</li>
+ *     <li>lists and tuples, to json arrays</li>
+ *     <li>strings in single or double quotes, with optional <code>u</code>, <code>b</code> or <code>r</code>
+ *         prefix, and python escapes</li>
+ *     <li>ints and floats, to json numbers; <code>inf</code> and <code>nan</code>, to strings
+ *         <code>"Infinity"</code> and <code>"NaN"</code></li>
+ *     <li><code>None</code>, <code>True</code> and <code>False</code>, to <code>null</code>, <code>true</code>
+ *         and <code>false</code></li>.
+ * </ul>
+ */
+public class PyLiteralConverter {
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos = 0;
+    private int lim = 0;
+    private long offset = 0; // of buffer start in input
+
+    private PyLiteralConverter(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Read one python literal from input reader and write it as json tokens to input generator.
+     *
+     * @param in
+     *     reader on python literal
+     * @param gen
+     *     generator to which to write json tokens
+     *
+     * @throws IOException on failure to read input or write output, or if input is not a python literal
+     */
+    public static void convert(Reader in, JsonGenerator gen) throws IOException {
+        PyLiteralConverter converter = new PyLiteralConverter(in);
+        converter.writeValue(gen);
+        if (converter.skipSpace() >= 0) {
+            throw converter.error("Unexpected content after literal");
+        }
+        gen.flush();
+    }
+
+    /**
+     * Return json text for input python literal.
+     *
+     * @param repr
+     *     python literal
+     *
+     * @return json text, compact
+     *
+     * @throws IOException if input is not a python literal
+     */
+    public static String toJson(String repr) throws IOException {
+        StringWriter rv = new StringWriter(repr.length());
+        try (JsonGenerator gen = JsonUtil.getDefaultMapper().getFactory().createGenerator(rv)) {
+            convert(new StringReader(repr), gen);
+        }
+
+        return rv.toString();
+    }
+
+    /**
+     * Return json node for input python literal, without intermediate json text.
+     *
+     * @param repr
+     *     python literal
+     *
+     * @return json node
+     *
+     * @throws IOException if input is not a python literal
+     */
+    public static JsonNode toJsonNode(String repr) throws IOException {
+        ObjectMapper mapper = JsonUtil.getDefaultMapper();
+        TokenBuffer tokens = new TokenBuffer(mapper, false);
+        convert(new StringReader(repr), tokens);
+
+        return mapper.readTree(tokens.asParser());
+    }
+
+    private void writeValue(JsonGenerator gen) throws IOException {
+        int c = skipSpace();
+        switch (c) {
+            case '{':
+                next();
+                gen.writeStartObject();
+                while (skipSpace() != '}') {
+                    writeFieldName(gen);
+                    expect(':');
+                    writeValue(gen);
+                    if (!delimit('}')) {
+                        break;
+                    }
+                }
+                expect('}');
+                gen.writeEndObject();
+                break;
+            case '[':
+            case '(':
+                next();
+                char close = (c == '[') ? ']' : ')';
+                gen.writeStartArray();
+                while (skipSpace() != close) {
+                    writeValue(gen);
+                    if (!delimit(close)) {
+                        break;
+                    }
+                }
+                expect(close);
+                gen.writeEndArray();
+                break;
+            case '\'':
+            case '"':
+                gen.writeString(readStrings(false));
+                break;
+            case -1:
+                throw error("Unexpected end of input");
+            default:
+                if (isNumberStart(c)) {
+                    writeNumber(gen, readNumber());
+                }
+                else if (isWordStart(c)) {
+                    String word = readWord();
+                    if (isStringPrefix(word) && (peek() == '\'' || peek() == '"')) {
+                        gen.writeString(readStrings(word.indexOf('r') >= 0 || word.indexOf('R') >= 0));
+                    }
+                    else if ("None".equals(word)) {
+                        gen.writeNull();
+                    }
+                    else if ("True".equals(word) || "False".equals(word)) {
+                        gen.writeBoolean("True".equals(word));
+                    }
+                    else if ("inf".equals(word) || "nan".equals(word)) {
+                        writeNumber(gen, word);
+                    }
+                    else {
+                        throw error(String.format("Unsupported name [%s]", word));
+                    }
+                }
+                else {
+                    throw error(String.format("Unexpected character [%c]", (char)c));
+                }
+        }
+    }
+
+    /**
+     * Write dict key as json field name: strings as they are, other scalars as per python
+     * <code>json.dumps()</code>.
+     */
+    private void writeFieldName(JsonGenerator gen) throws IOException {
+        int c = peek();
+        if (c == '\'' || c == '"') {
+            gen.writeFieldName(readStrings(false));
+        }
+        else if (isNumberStart(c)) {
+            gen.writeFieldName(readNumber());
+        }
+        else if (isWordStart(c)) {
+            String word = readWord();
+            if (isStringPrefix(word) && (peek() == '\'' || peek() == '"')) {
+                gen.writeFieldName(readStrings(word.indexOf('r') >= 0 || word.indexOf('R') >= 0));
+            }
+            else if ("None".equals(word)) {
+                gen.writeFieldName("null");
+            }
+            else if ("True".equals(word) || "False".equals(word)) {
+                gen.writeFieldName(word.toLowerCase());
+            }
+            else if ("inf".equals(word)) {
+                gen.writeFieldName("Infinity");
+            }
+            else if ("nan".equals(word)) {
+                gen.writeFieldName("NaN");
+            }
+            else {
+                throw error(String.format("Unsupported name [%s]", word));
+            }
+        }
+        else {
+            throw error("Expected dict key");
+        }
+    }
+
+    /**
+     * Write python int or float text as json number.
+     */
+    private void writeNumber(JsonGenerator gen, String text) throws IOException {
+        String digits = text.replace("_", "");
+        try {
+            if (isIntegral(digits)) {
+                BigInteger value = new BigInteger(digits);
+                if (value.bitLength() < 32) {
+                    gen.writeNumber(value.intValue()); // as json parser would read it
+                }
+                else if (value.bitLength() < 64) {
+                    gen.writeNumber(value.longValue());
+                }
+                else {
+                    gen.writeNumber(value);
+                }
+            }
+            else {
+                double value = Double.parseDouble(digits.replace("inf", "Infinity").replace("nan", "NaN"));
+                if (Double.isInfinite(value) || Double.isNaN(value)) {
+                    gen.writeString(Double.toString(value)); // json has no such numbers
+                }
+                else {
+                    gen.writeNumber(value);
+                }
+            }
+        }
+        catch (NumberFormatException x) {
+            throw error(String.format("Malformed number [%s]", text));
+        }
+    }
+
+    /**
+     * Consume delimiter after value in container: return true on comma, false on (unconsumed) input
+     * closing character.
+     */
+    private boolean delimit(char close) throws IOException {
+        int c = skipSpace();
+        if (c == ',') {
+            next();
+            return true;
+        }
+        if (c != close) {
+            throw error(String.format("Expected [,] or [%c]", close));
+        }
+        return false;
+    }
+
+    /**
+     * Read string literal and any adjacent (unprefixed) string literals, which python concatenates, as
+     * <code>pprint</code> emits to wrap long strings.
+     */
+    private String readStrings(boolean raw) throws IOException {
+        String rv = readString(raw);
+        if (skipSpace() != '\'' && peek() != '"') {
+            return rv;
+        }
+
+        StringBuilder concat = new StringBuilder(rv);
+        while (skipSpace() == '\'' || peek() == '"') {
+            concat.append(readString(false));
+        }
+        return concat.toString();
+    }
+
+    private String readString(boolean raw) throws IOException {
+        int quote = next();
+        StringBuilder rv = new StringBuilder();
+        while (true) {
+            int c = next();
+            if (c < 0) {
+                throw error("Unterminated string");
+            }
+            if (c == quote) {
+                return rv.toString();
+            }
+            if (c != '\\') {
+                rv.append((char)c);
+                continue;
+            }
+
+            int e = next();
+            if (raw) { // backslash stays, but still protects quote
+                rv.append('\\');
+                if (e >= 0) {
+                    rv.append((char)e);
+                }
+                continue;
+            }
+            switch (e) {
+                case '\n':
+                    break; // line continuation
+                case '\\':
+                case '\'':
+                case '"':
+                    rv.append((char)e);
+                    break;
+                case 'a':
+                    rv.append('\u0007');
+                    break;
+                case 'b':
+                    rv.append('\b');
+                    break;
+                case 'f':
+                    rv.append('\f');
+                    break;
+                case 'n':
+                    rv.append('\n');
+                    break;
+                case 'r':
+                    rv.append('\r');
+                    break;
+                case 't':
+                    rv.append('\t');
+                    break;
+                case 'v':
+                    rv.append('\u000b');
+                    break;
+                case 'x':
+                    rv.appendCodePoint(readHex(2));
+                    break;
+                case 'u':
+                    rv.appendCodePoint(readHex(4));
+                    break;
+                case 'U':
+                    int cp = readHex(8);
+                    if (!Character.isValidCodePoint(cp)) {
+                        throw error("Escape out of unicode range");
+                    }
+                    rv.appendCodePoint(cp);
+                    break;
+                case -1:
+                    throw error("Unterminated string");
+                default:
+                    if (e >= '0' && e <= '7') { // up to 3 octal digits
+                        int value = e - '0';
+                        for (int i = 1; i < 3 && peek() >= '0' && peek() <= '7'; i++) {
+                            value = 8 * value + (next() - '0');
+                        }
+                        rv.append((char)value);
+                    }
+                    else { // python keeps unrecognized escapes
+                        rv.append('\\').append((char)e);
+                    }
+            }
+        }
+    }
+
+    private int readHex(int len) throws IOException {
+        int rv = 0;
+        for (int i = 0; i < len; i++) {
+            int c = next();
+            int digit = Character.digit(c < 0 ? ' ' : (char)c, 16);
+            if (digit < 0) {
+                throw error("Malformed hex escape");
+            }
+            rv = (rv << 4) | digit;
+        }
+        return rv;
+    }
+
+    private String readNumber() throws IOException {
+        StringBuilder rv = new StringBuilder();
+        int c = peek();
+        if (c == '-' || c == '+') {
+            rv.append((char)next());
+            if (isWordStart(peek())) { // -inf, -nan
+                return rv.append(readWord()).toString();
+            }
+        }
+        while (true) {
+            c = peek();
+            if ((c >= '0' && c <= '9') || c == '.' || c == '_' || c == 'e' || c == 'E') {
+                rv.append((char)next());
+            }
+            else if ((c == '-' || c == '+') && (rv.charAt(rv.length() - 1) | 0x20) == 'e') {
+                rv.append((char)next()); // exponent sign
+            }
+            else {
+                return rv.toString();
+            }
+        }
+    }
+
+    private String readWord() throws IOException {
+        StringBuilder rv = new StringBuilder();
+        while (isWordStart(peek()) || (peek() >= '0' && peek() <= '9')) {
+            rv.append((char)next());
+        }
+        return rv.toString();
+    }
+
+    private void expect(char c) throws IOException {
+        if (skipSpace() != c) {
+            throw error(String.format("Expected [%c]", c));
+        }
+        next();
+    }
+
+    private static boolean isIntegral(String text) {
+        int start = (text.startsWith("-") || text.startsWith("+")) ? 1 : 0;
+        if (start == text.length()) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumberStart(int c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+
+    private static boolean isWordStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isStringPrefix(String word) {
+        switch (word.toLowerCase()) {
+            case "u":
+            case "b":
+            case "r":
+            case "br":
+            case "rb":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private int skipSpace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+            next();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (pos == lim) {
+            offset += lim;
+            pos = 0;
+            lim = Math.max(in.read(buf), 0);
+            if (lim == 0) {
+                return -1;
+            }
+        }
+        return buf[pos];
+    }
+
+    private int next() throws IOException {
+        int rv = peek();
+        if (rv >= 0) {
+            pos++;
+        }
+        return rv;
+    }
+
+    private IOException error(String msg) {
+        return new IOException(String.format("Malformed python literal at offset %d: %s", offset + pos, msg));
+    }
+}
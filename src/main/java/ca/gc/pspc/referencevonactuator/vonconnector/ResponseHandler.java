@@ -0,0 +1,91 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>ResponseHandler</code> consumes an agent response as it streams in from the connection, through a json
+ * parser on the response body, and produces a result from it.
+ *
+ * @param <T> result type
+ */
+@FunctionalInterface
+public interface ResponseHandler<T> {
+
+    /**
+     * Handler marshalling response into json node (null for empty response).
+     */
+    ResponseHandler<JsonNode> TREE = parser -> JsonUtil.getDefaultMapper().readTree(parser);
+
+    /**
+     * Handler extracting revealed attributes from response to <code>proof-request</code> as it streams in, as per
+     * <code>Util.revealedAttrs(JsonParser)</code>: map between referents and nested maps from revealed attribute
+     * names to (decoded) values, empty for empty response.
+     */
+    ResponseHandler<Map<String, Map<String, String>>> REVEALED_ATTRS = parser -> {
+        Map<String, Map<String, String>> rv = Util.readAt(parser, new String[] {"proof"}, Util::revealedAttrs);
+        return rv == null ? new HashMap<>() : rv;
+    };
+
+    /**
+     * Return handler binding response to input type (null for empty response).
+     *
+     * @param type
+     *     class to which to bind response
+     *
+     * @return handler
+     */
+    static <T> ResponseHandler<T> binding(Class<T> type) {
+        return parser -> parser.nextToken() == null ? null : JsonUtil.getDefaultMapper().readValue(parser, type);
+    }
+
+    /**
+     * Return handler reading response to <code>claim-request</code> with only claims matching input referents
+     * retained (null for empty response), as per <code>Util.pruneClaims(JsonParser, Set)</code>.
+     *
+     * @param referents
+     *     referents whose corresponding claims to retain
+     *
+     * @return handler
+     */
+    static ResponseHandler<ObjectNode> pruningClaims(Set<String> referents) {
+        return parser -> Util.pruneClaims(parser, referents);
+    }
+
+    /**
+     * Consume response and return result. The transport drains any part of the response that the handler
+     * leaves unread, and closes the parser.
+     *
+     * @param parser
+     *     json parser on response body, not yet advanced to its first token
+     *
+     * @return result
+     *
+     * @throws IOException on failure to read or parse response
+     */
+    T handle(JsonParser parser) throws IOException;
+}
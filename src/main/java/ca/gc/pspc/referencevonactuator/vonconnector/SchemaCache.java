@@ -0,0 +1,288 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>SchemaCache</code> singleton holds schemata by schema key, in memory and in a local file store, so that
+ * lookups survive restarts. Schemata on the ledger are immutable per (origin DID, name, version): a cached schema
+ * never goes stale, and hits make no network call. Misses look up the schema via the trust anchor, asynchronously
+ * for <code>getAsync()</code> and <code>prefetch()</code>. Empty responses (no such schema) do not cache.
+ * Configuration properties are:
+ * <ul>
+ *     <li><code>schema.cache.dir</code>: directory for file store, relative to the working directory unless
+ *         absolute (default <code>von-connector/schema-cache</code> in the system temporary directory)</li>.
+ * </ul>
+ */
+public class SchemaCache {
+
+    private static SchemaCache theInstance = null;
+
+    private Path dir;
+    private Function<SchemaKey, CompletableFuture<JsonNode>> lookup;
+    private Map<SchemaKey, JsonNode> schemata = new ConcurrentHashMap<>();
+    private Map<SchemaKey, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Return the instance, populating it from configuration first if necessary.
+     *
+     * @return the instance
+     */
+    synchronized static public SchemaCache getInstance() {
+        if (theInstance == null) {
+            String dir = Config.getInstance().get("schema.cache.dir");
+            theInstance = new SchemaCache(
+                dir == null
+                    ? Paths.get(System.getProperty("java.io.tmpdir"), "von-connector", "schema-cache")
+                    : Paths.get(dir),
+                Agent.TRUST_ANCHOR);
+        }
+
+        return theInstance;
+    }
+
+    /**
+     * Construct schema cache on input file store directory, looking up misses via input agent.
+     *
+     * @param dir
+     *     directory for file store, created on first write if absent
+     * @param lookupAgent
+     *     agent to look up schemata not in cache
+     */
+    SchemaCache(Path dir, Agent lookupAgent) {
+        this(
+            dir,
+            sKey -> lookupAgent.postAsync(
+                null,
+                MessageType.SCHEMA_LOOKUP,
+                sKey.getOriginDid(),
+                sKey.getName(),
+                sKey.getVersion()));
+    }
+
+    /**
+     * Construct schema cache on input file store directory, looking up misses via input function.
+     *
+     * @param dir
+     *     directory for file store, created on first write if absent
+     * @param lookup
+     *     function returning future schema for key (null or empty for no such schema)
+     */
+    SchemaCache(Path dir, Function<SchemaKey, CompletableFuture<JsonNode>> lookup) {
+        this.dir = dir;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Return schema for input key from cache, looking it up (and caching it) on miss.
+     *
+     * @param sKey
+     *     schema key
+     *
+     * @return schema, empty for no such schema
+     *
+     * @throws IOException on failure to look up schema
+     */
+    public JsonNode get(SchemaKey sKey) throws IOException {
+        return AgentExecutor.await(getAsync(sKey));
+    }
+
+    /**
+     * Return future schema for input key: complete already on cache hit, completing on lookup via agent otherwise.
+     * Concurrent misses on the same key share a single lookup.
+     *
+     * @param sKey
+     *     schema key
+     *
+     * @return future completing with schema (empty for no such schema), or exceptionally on lookup failure
+     */
+    public CompletableFuture<JsonNode> getAsync(SchemaKey sKey) {
+        JsonNode cached = cached(sKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.deepCopy());
+        }
+
+        CompletableFuture<JsonNode> shared = new CompletableFuture<>();
+        CompletableFuture<JsonNode> prior = pending.putIfAbsent(sKey, shared);
+        if (prior != null) {
+            return prior.thenApply(SchemaCache::copy);
+        }
+
+        cached = cached(sKey); // another lookup may have completed since
+        if (cached != null) {
+            pending.remove(sKey, shared);
+            shared.complete(cached);
+        }
+        else {
+            lookup.apply(sKey).whenComplete((schema, x) -> {
+                if (x == null) {
+                    put(sKey, schema);
+                }
+                pending.remove(sKey, shared);
+                if (x == null) {
+                    shared.complete(schema);
+                }
+                else {
+                    shared.completeExceptionally(x);
+                }
+            });
+        }
+
+        return shared.thenApply(SchemaCache::copy);
+    }
+
+    /**
+     * Return copy of input schema for caller, empty for none (as on empty response to lookup).
+     */
+    private static JsonNode copy(JsonNode schema) {
+        return schema == null ? JsonUtil.jsonObject() : schema.deepCopy();
+    }
+
+    /**
+     * Fill cache in background with schemata for input keys not yet in it.
+     *
+     * @param sKeys
+     *     schema keys
+     */
+    public void prefetch(Collection<SchemaKey> sKeys) {
+        for (SchemaKey sKey : sKeys) {
+            getAsync(sKey);
+        }
+    }
+
+    /**
+     * Return whether cache holds schema for input key, in memory or in file store, without looking it up.
+     *
+     * @param sKey
+     *     schema key
+     *
+     * @return whether cache holds schema
+     */
+    public boolean contains(SchemaKey sKey) {
+        return cached(sKey) != null;
+    }
+
+    /**
+     * Return cached schema from memory, or from file store (promoting it into memory); null on miss.
+     */
+    private JsonNode cached(SchemaKey sKey) {
+        JsonNode rv = schemata.get(sKey);
+        if (rv != null) {
+            return rv;
+        }
+
+        Path p = pathFor(sKey);
+        if (!Files.isRegularFile(p)) {
+            return null;
+        }
+        try (InputStream input = Files.newInputStream(p)) {
+            rv = JsonUtil.getDefaultMapper().readTree(input);
+        }
+        catch (IOException x) {
+            System.out.println(String.format(
+                "WARN: Discarding unreadable schema cache file [%s]: %s",
+                p,
+                x.getMessage()));
+            try {
+                Files.deleteIfExists(p);
+            }
+            catch (IOException xx) {
+                // pass through: next write replaces it
+            }
+            return null;
+        }
+        if (rv == null || rv.size() == 0) {
+            return null;
+        }
+        schemata.put(sKey, rv);
+
+        return rv;
+    }
+
+    /**
+     * Cache schema in memory and in file store, writing file atomically so that concurrent readers (including
+     * other processes) never see a partial file. Skip empty responses: the schema may yet appear on the ledger.
+     */
+    private void put(SchemaKey sKey, JsonNode schema) {
+        if (schema == null || schema.size() == 0) {
+            return;
+        }
+        schemata.put(sKey, schema);
+
+        Path p = pathFor(sKey);
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, ".schema", ".tmp");
+            try {
+                try (OutputStream output = Files.newOutputStream(tmp)) {
+                    JsonUtil.getCompactWriter().writeValue(output, schema);
+                }
+                try {
+                    Files.move(tmp, p, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+                catch (AtomicMoveNotSupportedException x) {
+                    Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        catch (IOException x) {
+            System.out.println(String.format(
+                "WARN: Could not write schema cache file [%s]: %s",
+                p,
+                x.getMessage()));
+        }
+    }
+
+    /**
+     * Return file store path for input schema key: its URL-encoded components, tilde-separated (URL encoding
+     * escapes any tilde within them).
+     */
+    private Path pathFor(SchemaKey sKey) {
+        try {
+            return dir.resolve(String.format(
+                "%s~%s~%s.json",
+                URLEncoder.encode(sKey.getOriginDid(), "UTF-8"),
+                URLEncoder.encode(sKey.getName(), "UTF-8"),
+                URLEncoder.encode(sKey.getVersion(), "UTF-8")));
+        }
+        catch (UnsupportedEncodingException x) {
+            throw new IllegalStateException(x); // UTF-8 is always supported
+        }
+    }
+}
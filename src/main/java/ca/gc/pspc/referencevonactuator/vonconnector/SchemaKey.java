@@ -16,20 +16,46 @@ limitations under the License.
 
 package ca.gc.pspc.referencevonactuator.vonconnector;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
 /**
- * <code>SchemaKey</code> encapsulates schema key data (origin DID, name, version).
+ * <code>SchemaKey</code> encapsulates schema key data (origin DID, name, version). Instances are immutable;
+ * <code>of()</code> factory methods return interned instances from a registry, so that equal keys from across
+ * responses share one instance and compare by identity first. Keys retain the field name of the origin DID
+ * as they arrive (did/issuer/identifier/etc.) for serialization, but compare without regard to it.
  */
 public class SchemaKey {
 
-    private String originDid;
-    private String name;
-    private String version;
+    /**
+     * Interned instances; past this many, factory methods return instances without interning them.
+     */
+    private static final int MAX_INTERNED = 65536;
+    private static final Map<SchemaKey, SchemaKey> REGISTRY = new ConcurrentHashMap<>();
+
+    /**
+     * Field name for origin DID as indy-sdk specifies schema keys.
+     */
+    private static final String DID_FIELD = "did";
+
+    private final String originDidField;
+    private final String originDid;
+    private final String name;
+    private final String version;
+    private final int hash;
 
     /**
      * Construct schema key on origin DID, name, version.
@@ -39,9 +65,16 @@ public class SchemaKey {
      * @param version schema version
      */
     public SchemaKey(String originDid, String name, String version) {
+        this(DID_FIELD, originDid, name, version);
+    }
+
+    private SchemaKey(String originDidField, String originDid, String name, String version) {
+        this.originDidField = originDidField;
         this.originDid = originDid;
         this.name = name;
         this.version = version;
+        this.hash = 31 * (31 * (31 + Objects.hashCode(originDid)) + Objects.hashCode(name)) // as Objects.hash()
+            + Objects.hashCode(version);
     }
 
     /**
@@ -50,20 +83,141 @@ public class SchemaKey {
      * @param schemaKeyNode schema key specifier with three key/value pairs for origin DID, name, version
      */
     public SchemaKey(ObjectNode schemaKeyNode) {
-        if (schemaKeyNode.isContainerNode() && schemaKeyNode.size() == 3) {
-            this.name = schemaKeyNode.get("name").textValue();
-            this.version = schemaKeyNode.get("version").textValue();
-            List<String> fields = new ArrayList<>();
-            schemaKeyNode.fieldNames().forEachRemaining(fields::add);
-            fields.remove("name");
-            fields.remove("version");
-            this.originDid = schemaKeyNode.get(fields.get(0)).textValue();
+        this(fields(schemaKeyNode));
+    }
+
+    /**
+     * Construct schema key from json object at input parser, with schema key data (did/issuer/identifier/etc.,
+     * name, version), consuming the object.
+     *
+     * @param parser json parser not yet advanced or at start of schema key specifier, with three key/value pairs
+     *     for origin DID, name, version
+     *
+     * @throws IOException on failure to read or parse json, including when it does not correspond to a schema key
+     */
+    public SchemaKey(JsonParser parser) throws IOException {
+        this(fields(parser));
+    }
+
+    private SchemaKey(String[] fields) {
+        this(fields[3], fields[0], fields[1], fields[2]);
+    }
+
+    /**
+     * Return interned schema key on origin DID, name, version.
+     *
+     * @param originDid origin DID
+     * @param name schema name
+     * @param version schema version
+     *
+     * @return schema key
+     */
+    public static SchemaKey of(String originDid, String name, String version) {
+        return intern(new SchemaKey(originDid, name, version));
+    }
+
+    /**
+     * Return interned schema key from json node with schema key data (did/issuer/identifier/etc., name, version).
+     *
+     * @param schemaKeyNode schema key specifier with three key/value pairs for origin DID, name, version
+     *
+     * @return schema key
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static SchemaKey of(ObjectNode schemaKeyNode) {
+        return intern(new SchemaKey(schemaKeyNode));
+    }
+
+    /**
+     * Return interned schema key from json object at input parser, consuming the object.
+     *
+     * @param parser json parser not yet advanced or at start of schema key specifier
+     *
+     * @return schema key
+     *
+     * @throws IOException on failure to read or parse json, including when it does not correspond to a schema key
+     */
+    public static SchemaKey of(JsonParser parser) throws IOException {
+        return intern(new SchemaKey(parser));
+    }
+
+    private static SchemaKey intern(SchemaKey sKey) {
+        if (!DID_FIELD.equals(sKey.originDidField)) {
+            return sKey; // an interned instance would serialize with the wrong field name
         }
-        else {
+        SchemaKey rv = REGISTRY.get(sKey);
+        if (rv == null) {
+            if (REGISTRY.size() >= MAX_INTERNED) {
+                return sKey;
+            }
+            rv = REGISTRY.putIfAbsent(sKey, sKey);
+        }
+
+        return rv == null ? sKey : rv;
+    }
+
+    /**
+     * Return origin DID, name, version, and origin DID field name from schema key specifier in one pass over
+     * its fields: origin DID is the field other than name and version, whatever its name.
+     */
+    private static String[] fields(ObjectNode schemaKeyNode) {
+        if (!schemaKeyNode.isContainerNode() ||
+                schemaKeyNode.size() != 3 ||
+                !schemaKeyNode.has("name") ||
+                !schemaKeyNode.has("version")) {
             throw new IllegalArgumentException(String.format(
                 "Specification %s does not correspond to a schema key",
                 schemaKeyNode.toString()));
         }
+
+        String[] rv = new String[4];
+        Iterator<Map.Entry<String, JsonNode>> fields = schemaKeyNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            int i = index(field.getKey());
+            rv[i] = field.getValue().textValue();
+            if (i == 0) {
+                rv[3] = field.getKey();
+            }
+        }
+
+        return rv;
+    }
+
+    private static String[] fields(JsonParser parser) throws IOException {
+        if (!parser.hasCurrentToken()) {
+            parser.nextToken();
+        }
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Specification does not correspond to a schema key");
+        }
+
+        String[] rv = new String[4];
+        int seen = 0; // bit per index
+        boolean ok = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int i = index(parser.getCurrentName());
+            if (i == 0) {
+                rv[3] = parser.getCurrentName();
+            }
+            JsonToken token = parser.nextToken();
+            parser.skipChildren();
+            ok = ok && (seen & (1 << i)) == 0;
+            seen |= (1 << i);
+            rv[i] = (token == JsonToken.VALUE_STRING) ? parser.getText() : null; // as JsonNode.textValue()
+        }
+        if (!ok || seen != 0x7) {
+            throw new JsonParseException(parser, "Specification does not correspond to a schema key");
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return index of schema key field by name: 0 for origin DID, 1 for name, 2 for version.
+     */
+    private static int index(String field) {
+        return "name".equals(field) ? 1 : ("version".equals(field) ? 2 : 0);
     }
 
     /**
@@ -93,6 +247,22 @@ public class SchemaKey {
         return version;
     }
 
+    /**
+     * Return json node with schema key data: origin DID (under the field name from which it came, <code>did</code>
+     * as indy-sdk specifies schema keys by default), name, version.
+     *
+     * @return json node
+     */
+    @JsonValue
+    public ObjectNode toJson() {
+        ObjectNode rv = (ObjectNode)JsonUtil.jsonObject();
+        rv.put(originDidField, originDid);
+        rv.put("name", name);
+        rv.put("version", version);
+
+        return rv;
+    }
+
     /**
      * Return equality comparison (for use in object hashing).
      *
@@ -107,7 +277,8 @@ public class SchemaKey {
             return false;
         }
         SchemaKey sKey = (SchemaKey)o;
-        return Objects.equals(originDid, sKey.originDid) &&
+        return hash == sKey.hash &&
+            Objects.equals(originDid, sKey.originDid) &&
             Objects.equals(name, sKey.name) &&
             Objects.equals(version, sKey.version);
     }
@@ -119,7 +290,7 @@ public class SchemaKey {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(originDid, name, version);
+        return hash;
     }
 
     /**
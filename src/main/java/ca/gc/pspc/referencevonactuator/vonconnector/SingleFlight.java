@@ -0,0 +1,126 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * <code>SingleFlight</code> coalesces concurrent identical calls: while a call on a key is in flight, further
+ * calls on the same key wait for and share its result rather than executing again.
+ *
+ * Results may be mutable (e.g., json nodes), so each waiter receives its own copy of a shared result, via the
+ * copier that the constructor specifies; a call that no other call joins returns its result uncopied, and a null
+ * result shares without copying.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private UnaryOperator<V> copier;
+
+    /**
+     * Construct on copier for shared results.
+     *
+     * @param copier
+     *     function returning copy of a result, for sharing
+     */
+    public SingleFlight(UnaryOperator<V> copier) {
+        this.copier = copier;
+    }
+
+    /**
+     * Execute input call, or join the identical call already in flight on input key.
+     *
+     * @param key
+     *     key identifying call
+     * @param call
+     *     call to execute if none in flight on key
+     *
+     * @return result of call
+     *
+     * @throws IOException if call fails on <code>IOException</code>
+     */
+    public V execute(K key, Callable<V> call) throws IOException {
+        Flight<V> mine = new Flight<>();
+        Flight<V> flight = flights.compute(key, (k, current) -> {
+            if (current == null) {
+                return mine;
+            }
+            current.followers++;
+            return current;
+        });
+
+        if (flight != mine) {
+            return share(AgentExecutor.await(flight.future));
+        }
+
+        V rv = null;
+        try {
+            rv = call.call();
+        }
+        catch (IOException | RuntimeException | Error x) {
+            flights.remove(key);
+            mine.future.completeExceptionally(x);
+            throw x;
+        }
+        catch (Exception x) {
+            flights.remove(key);
+            mine.future.completeExceptionally(x);
+            throw new IOException(x);
+        }
+
+        flights.remove(key); // followers count is final once flight leaves map
+        mine.future.complete(rv);
+        return mine.followers > 0 ? share(rv) : rv;
+    }
+
+    /**
+     * Return copy of shared result; null (e.g., for empty response) shares as is.
+     *
+     * @param rv
+     *     shared result
+     *
+     * @return copy of result
+     */
+    private V share(V rv) {
+        return rv == null ? null : copier.apply(rv);
+    }
+
+    /**
+     * Return number of calls in flight.
+     *
+     * @return calls in flight
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    /**
+     * <code>Flight</code> holds a call in flight and counts the calls joining it.
+     */
+    private static class Flight<V> {
+        private CompletableFuture<V> future = new CompletableFuture<>();
+        private int followers = 0; // guarded by map entry, via compute()
+    }
+}
@@ -16,43 +16,106 @@ limitations under the License.
 
 package ca.gc.pspc.referencevonactuator.vonconnector;
 
+import java.io.IOException;
 import java.math.BigInteger;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import ca.gc.pspc.referencevonactuator.intg.JsonLoadException;
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
 public class Util {
+    private static final long POW_2_32 = 1L << 32;
+    private static final BigInteger BIG_POW_2_32 = BigInteger.valueOf(POW_2_32);
+    private static final int MAX_LONG_DIGITS = 18; // any 18-digit decimal fits in a long
+
+    /**
+     * Hex digit values by (ASCII) character, -1 for non-hex characters; shared by encoder and decoder.
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    /**
+     * Lower-case hex digits by value, as (ASCII) bytes; shared by encoder and decoder.
+     */
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Memo of database field names by descriptor, for <code>toField()</code>; clears on reaching capacity.
+     */
+    private static final Map<String, String> FIELDS = new ConcurrentHashMap<>();
+    private static final int MAX_FIELDS = 4096;
+
+    private static final Pattern UPPER_RUN = Pattern.compile("(\\p{Upper}+)");
+    private static final Pattern PUNCT_BLANK_RUN = Pattern.compile("[\\p{Punct}\\p{Blank}]+");
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte)-1);
+        for (int i = 0; i < HEX_DIGITS.length; i++) {
+            HEX_VALUES[HEX_DIGITS[i]] = (byte)i;
+            HEX_VALUES[Character.toUpperCase(HEX_DIGITS[i])] = (byte)i;
+        }
+    }
+
     /**
-     * Decode encoded claim values.
+     * Decode encoded claim values. Values in [0, 2^32) decode to themselves (as canonical decimal strings); values
+     * 2^32 and 2^32 + 1 decode to the empty string and null respectively; larger values decode from
+     * (value - 2^32), whose big-endian bytes are the hex digits of the UTF-8 encoding of the original string.
      *
      * @param value
      *     the numeric string to decode
      * @return the decoded value (String or null)
      */
     public static String decode(String value) {
-        final BigInteger POW_2_32 = new BigInteger("4294967296");
+        if (value != null && value.length() > 0 && value.length() <= MAX_LONG_DIGITS && isDigits(value)) {
+            long longValue = Long.parseLong(value); // fast path: no BigInteger
+            if (longValue < POW_2_32) {
+                return Long.toString(longValue);
+            }
+            long i = longValue - POW_2_32;
+            if (i == 0) {
+                return ""; // special case: empty string encodes as 4294967296
+            }
+            else if (i == 1) {
+                return null; // sentinel 2**32 + 1
+            }
+            int len = 8 - Long.numberOfLeadingZeros(i) / 8;
+            byte[] bytes = new byte[len];
+            for (int j = len - 1; j >= 0; j--, i >>>= 8) {
+                bytes[j] = (byte)i;
+            }
+            return unhexlify(bytes, 0, len);
+        }
+
         BigInteger bigValue;
         try {
             bigValue = new BigInteger(value);
-            if ((BigInteger.ZERO.compareTo(bigValue) <= 0) && (bigValue.compareTo(POW_2_32) < 0)) {
+            if ((BigInteger.ZERO.compareTo(bigValue) <= 0) && (bigValue.compareTo(BIG_POW_2_32) < 0)) {
                 return bigValue.toString();
             }
         }
-        catch (NumberFormatException x) {
+        catch (NumberFormatException | NullPointerException x) {
             throw new IllegalArgumentException(String.format(
                 "decode() requires a numeric string; [%s] fails",
                 value));
         }
 
-        BigInteger i = bigValue.subtract(POW_2_32);
+        BigInteger i = bigValue.subtract(BIG_POW_2_32);
         if (i.compareTo(BigInteger.ZERO) == 0) {
             return ""; // special case: empty string encodes as 4294967296
         }
@@ -61,16 +124,218 @@ public class Util {
         }
 
         byte[] bytes = i.toByteArray();
-        if (bytes.length % 2 != 0) {
-            throw new IllegalArgumentException("Encoded value does not decode to an even number of UTF-8 characters");
+        int start = (bytes.length > 1 && bytes[0] == 0) ? 1 : 0; // sign byte
+        return unhexlify(bytes, start, bytes.length - start);
+    }
+
+    /**
+     * Decode all encoded claim values in input json dict (e.g., <code>revealed_attrs</code> of an
+     * <code>eq_proof</code>) in one pass, as per <code>decode()</code>.
+     *
+     * @param encodedNode
+     *     json dict of attribute names to encoded values
+     *
+     * @return map of attribute names to decoded values
+     */
+    public static Map<String, String> decodeAll(JsonNode encodedNode) {
+        Map<String, String> rv = new HashMap<>(2 * encodedNode.size());
+        Iterator<Map.Entry<String, JsonNode>> fields = encodedNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            rv.put(field.getKey(), decode(field.getValue().asText()));
+        }
+
+        return rv;
+    }
+
+    /**
+     * Encode claim value as agents do, for <code>decode()</code> to restore: a string that parses as a python
+     * integer in [0, 2^32) encodes to itself, as is; null and the empty string encode to sentinels 2^32 + 1 and
+     * 2^32 respectively; any other string encodes as 2^32 plus the integer whose big-endian bytes are the hex
+     * digits of its UTF-8 encoding. As with the agents, integers in other than canonical decimal form (e.g.,
+     * <code>"+7"</code>, <code>"007"</code>) encode to themselves and so do not round-trip.
+     *
+     * @param value
+     *     the string to encode
+     * @return the encoded value (numeric string)
+     */
+    public static String encode(String value) {
+        if (value == null) {
+            return Long.toString(POW_2_32 + 1); // sentinel
         }
-        StringBuffer rv = new StringBuffer();
-        for (int j = 0; j < bytes.length / 2; j++) { // unhexlify
-            int top = Character.digit(bytes[2 * j], 16);
-            int bot = Character.digit(bytes[2 * j + 1], 16);
-            rv.append((char)((top << 4) + bot));
+        if (isInt32(value)) {
+            return value;
         }
-        return rv.toString();
+        if (value.isEmpty()) {
+            return Long.toString(POW_2_32); // special case
+        }
+
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (2 * utf8.length < 8) { // hex digits fit in a long with room for the offset: no BigInteger
+            long i = 0;
+            for (byte b : utf8) {
+                i = (i << 16) | (HEX_DIGITS[(b >> 4) & 0x0f] << 8) | HEX_DIGITS[b & 0x0f];
+            }
+            return Long.toString(i + POW_2_32);
+        }
+
+        byte[] hexDigits = new byte[2 * utf8.length];
+        for (int j = 0; j < utf8.length; j++) {
+            hexDigits[2 * j] = HEX_DIGITS[(utf8[j] >> 4) & 0x0f];
+            hexDigits[2 * j + 1] = HEX_DIGITS[utf8[j] & 0x0f];
+        }
+        return new BigInteger(1, hexDigits).add(BIG_POW_2_32).toString();
+    }
+
+    /**
+     * Encode integral claim value as agents do: values in [0, 2^32) encode to themselves, others as their
+     * decimal strings per <code>encode(String)</code>.
+     *
+     * @param value
+     *     the integer to encode
+     * @return the encoded value (numeric string)
+     */
+    public static String encode(long value) {
+        return (value >= 0 && value < POW_2_32) ? Long.toString(value) : encode(Long.toString(value));
+    }
+
+    /**
+     * Encode all claim values in input map in one pass: integral numbers as per <code>encode(long)</code>,
+     * null as per <code>encode(String)</code>, and anything else as its string form per
+     * <code>encode(String)</code>.
+     *
+     * @param data
+     *     map of attribute names to claim values
+     *
+     * @return map of attribute names to encoded values
+     */
+    public static Map<String, String> encodeAll(Map<String, ?> data) {
+        Map<String, String> rv = new HashMap<>(2 * data.size());
+        for (Map.Entry<String, ?> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                rv.put(entry.getKey(), encode(((Number)value).longValue()));
+            }
+            else {
+                rv.put(entry.getKey(), encode(value == null ? null : value.toString()));
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Encode all claim values in input json dict (e.g., claim data for <code>claim-create</code>) in one pass,
+     * as per <code>encodeAll(Map)</code>.
+     *
+     * @param dataNode
+     *     json dict of attribute names to claim values
+     *
+     * @return map of attribute names to encoded values
+     */
+    public static Map<String, String> encodeAll(JsonNode dataNode) {
+        Map<String, String> rv = new HashMap<>(2 * dataNode.size());
+        Iterator<Map.Entry<String, JsonNode>> fields = dataNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode valueNode = field.getValue();
+            if (valueNode.isIntegralNumber() && valueNode.canConvertToLong()) {
+                rv.put(field.getKey(), encode(valueNode.longValue()));
+            }
+            else {
+                rv.put(field.getKey(), encode(valueNode.isNull() ? null : valueNode.asText()));
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return whether input string parses as a python <code>int()</code> in [0, 2^32): optional surrounding
+     * whitespace, optional sign, then decimal digits with single underscores between them.
+     */
+    private static boolean isInt32(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && isPySpace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && isPySpace(value.charAt(end - 1))) {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (value.charAt(start) == '+' || value.charAt(start) == '-')) {
+            negative = (value.charAt(start++) == '-');
+        }
+        if (start == end) {
+            return false;
+        }
+
+        long i = 0;
+        boolean afterUnderscore = true; // no leading underscore
+        for (int j = start; j < end; ) {
+            int c = value.codePointAt(j);
+            j += Character.charCount(c);
+            if (c == '_') {
+                if (afterUnderscore) {
+                    return false;
+                }
+                afterUnderscore = true;
+                continue;
+            }
+            int digit = Character.digit(c, 10); // python int() takes any unicode decimal digit
+            if (digit < 0) {
+                return false;
+            }
+            afterUnderscore = false;
+            i = 10 * i + digit;
+            if (i >= POW_2_32) {
+                return false; // out of range, whether or not it parses
+            }
+        }
+
+        return !afterUnderscore && (!negative || i == 0);
+    }
+
+    /**
+     * Return whether input character is whitespace to python <code>str.isspace()</code>.
+     */
+    private static boolean isPySpace(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c) || c == '\u0085';
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return UTF-8 string from input (ASCII) hex digit bytes.
+     */
+    private static String unhexlify(byte[] hexDigits, int offset, int len) {
+        if (len % 2 != 0) {
+            throw new IllegalArgumentException("Encoded value does not decode to an even number of hex digits");
+        }
+        byte[] rv = new byte[len / 2];
+        for (int j = 0; j < rv.length; j++) {
+            int top = hexValue(hexDigits[offset + 2 * j]);
+            int bot = hexValue(hexDigits[offset + 2 * j + 1]);
+            rv[j] = (byte)((top << 4) + bot);
+        }
+        return new String(rv, StandardCharsets.UTF_8);
+    }
+
+    private static int hexValue(byte b) {
+        int rv = (b < 0) ? -1 : HEX_VALUES[b];
+        if (rv < 0) {
+            throw new IllegalArgumentException("Encoded value does not decode to hex digits");
+        }
+        return rv;
     }
 
     /**
@@ -185,13 +450,15 @@ public class Util {
      *      map from schema key to json dict with schema attribute names and values to match;
      *      e.g.,
      *      {
-     *          new SchemaKey("Q4zqM7aX...", "bc-reg", "1.0"): {
+     *          SchemaKey.of("Q4zqM7aX...", "bc-reg", "1.0"): {
      *              "attr0": "2",
      *              "attr1": "Hello"
      *          }
      *      }
      * @return human-legible map, referent to a json node with attributes and values matching input filter,
      *     for presentation so that an end-user can choose the claim(s) of interest.
+     *
+     * @see ClaimIndex, to filter one claims structure repeatedly
      */
     public static Map<String, JsonNode> claimsFor(JsonNode claimsNode, Map<SchemaKey, ObjectNode> filt) {
         JsonNode uuid2claimsNode = claimsNode.get("attrs");
@@ -200,53 +467,50 @@ public class Util {
         }
 
         Map<String, JsonNode> rv = new HashMap<>();
-        Iterator<String> referents = uuid2claimsNode.fieldNames();
-        while (referents.hasNext()) {
-            String referent = referents.next();
-            JsonNode innerClaimsNode = uuid2claimsNode.get(referent);
-            Iterator<JsonNode> innerClaims = innerClaimsNode.elements();
-            while (innerClaims.hasNext()) {
-                JsonNode innerClaimNode = innerClaims.next();
+        Set<String> seen = new HashSet<>(); // claim appears once per attribute
+        for (JsonNode innerClaimsNode : uuid2claimsNode) {
+            for (JsonNode innerClaimNode : innerClaimsNode) {
                 String innerClaimReferent = innerClaimNode.get("referent").textValue();
-                if (rv.keySet().contains(innerClaimReferent)) {
+                if (!seen.add(innerClaimReferent)) {
                     continue;
                 }
 
                 JsonNode innerClaimAttrsNode = innerClaimNode.get("attrs");
-
                 if (filt == null) {
                     rv.put(innerClaimReferent, innerClaimAttrsNode);
                     continue;
                 }
 
-                SchemaKey claimSchemaKey = new SchemaKey((ObjectNode)innerClaimNode.get("schema_key"));
-                if (!filt.containsKey(claimSchemaKey)) {
-                    continue;
+                ObjectNode schemaFilt = filt.get(SchemaKey.of((ObjectNode)innerClaimNode.get("schema_key")));
+                if (schemaFilt != null && matches(innerClaimAttrsNode, schemaFilt)) {
+                    rv.put(innerClaimReferent, innerClaimAttrsNode);
                 }
+            }
+        }
 
-                Iterator<String> filtAttrs = filt.get(claimSchemaKey).fieldNames();
-                boolean isBumf = false;
-                while (!isBumf && filtAttrs.hasNext()) {
-                    String filtAttr = filtAttrs.next();
-                    if (!innerClaimAttrsNode.has(filtAttr)) {
-                        isBumf = true;
-                        continue;
-                    }
-                    if (!innerClaimAttrsNode.get(filtAttr).equals(filt.get(claimSchemaKey).get(filtAttr))) {
-                        isBumf = true;
-                        continue;
-                    }
-
-                }
-                if (isBumf) {
-                    continue;
-                }
+        return rv;
+    }
 
-                rv.put(innerClaimReferent, innerClaimAttrsNode);
+    /**
+     * Return whether claim attributes include all input filter attributes with equal values.
+     *
+     * @param attrsNode
+     *     json dict of claim attribute names to values
+     * @param schemaFilt
+     *     json dict of attribute names to values to match
+     *
+     * @return whether claim attributes match filter
+     */
+    private static boolean matches(JsonNode attrsNode, ObjectNode schemaFilt) {
+        Iterator<Map.Entry<String, JsonNode>> filtAttrs = schemaFilt.fields();
+        while (filtAttrs.hasNext()) {
+            Map.Entry<String, JsonNode> filtAttr = filtAttrs.next();
+            if (!filtAttr.getValue().equals(attrsNode.get(filtAttr.getKey()))) {
+                return false;
             }
         }
 
-        return rv;
+        return true;
     }
 
     /**
@@ -257,9 +521,12 @@ public class Util {
      *     claims structure (at <code>["claims"]</code>) as HolderProver agent returns in response
      *     to POST <code>claims-request</code> message type
      * @param referents
-     *     the set of referents, as specified in claims json structure, whose corresponding claims to retain
+     *     the set of referents, as specified in claims json structure; the method returns schema keys for all
+     *     referents present regardless, as it always has
      *
      * @return schema key per referent (empty Map if no such referents present)
+     *
+     * @see ClaimIndex, to find schema keys for given referents only, or claims and schema keys in one pass
      */
     public static Map<String, SchemaKey> schemaKeysFor(ObjectNode claimsNode, Set<String> referents) {
         Map<String, SchemaKey> rv = new HashMap<>();
@@ -268,19 +535,12 @@ public class Util {
             return rv;
         }
 
-        Iterator<String> attrUuids = uuid2claimsNode.fieldNames();
-        while (attrUuids.hasNext()) {
-            String attrUuid = attrUuids.next();
-            JsonNode innerClaimsNode = uuid2claimsNode.get(attrUuid);
-            Iterator<JsonNode> innerClaims = innerClaimsNode.elements();
-            while (innerClaims.hasNext()) {
-                JsonNode innerClaimNode = innerClaims.next();
+        for (JsonNode innerClaimsNode : uuid2claimsNode) {
+            for (JsonNode innerClaimNode : innerClaimsNode) {
                 String innerClaimReferent = innerClaimNode.get("referent").textValue();
-                if (rv.keySet().contains(innerClaimReferent)) {
-                    continue;
+                if (!rv.containsKey(innerClaimReferent)) {
+                    rv.put(innerClaimReferent, SchemaKey.of((ObjectNode)innerClaimNode.get("schema_key")));
                 }
-
-                rv.put(innerClaimReferent, new SchemaKey((ObjectNode)innerClaimNode.get("schema_key")));
             }
         }
 
@@ -300,23 +560,92 @@ public class Util {
      */
     public static ObjectNode pruneClaims(ObjectNode claimsNode, Set<String> referents) {
         ObjectNode rv = claimsNode;
-        JsonNode uuid2claimsNode = rv.get("attrs");
-        Iterator<String> attrUuids = uuid2claimsNode.fieldNames();
-        while (attrUuids.hasNext()) {
-            String attrUuid = attrUuids.next(); // attr0_uuid
-            ArrayNode claimsByUuidNode = (ArrayNode)uuid2claimsNode.get(attrUuid); // [{...}, {...}, ... {...}]
-            int lenClaimsByUuidNode = claimsByUuidNode.size();
-            List<Integer> bumf = new ArrayList<>();
-            for (int i = 0; i < lenClaimsByUuidNode; i++) {
-                JsonNode innerClaim = claimsByUuidNode.get(i);
-                String innerClaimUuid = innerClaim.get("referent").textValue(); // "claim::b2d9f990-..."
-                if (!referents.contains(innerClaimUuid)) {
-                    bumf.add(i);
+        for (JsonNode claimsByUuidNode : rv.get("attrs")) { // attr0_uuid: [{...}, {...}, ... {...}]
+            ArrayNode innerClaims = (ArrayNode)claimsByUuidNode;
+            int kept = 0;
+            for (int i = 0; i < innerClaims.size(); i++) { // compact retained claims toward the front, in order
+                JsonNode innerClaim = innerClaims.get(i);
+                if (referents.contains(innerClaim.get("referent").textValue())) { // "claim::b2d9f990-..."
+                    if (kept < i) {
+                        innerClaims.set(kept, innerClaim);
+                    }
+                    kept++;
+                }
+            }
+            for (int i = innerClaims.size() - 1; i >= kept; i--) { // drop tail from the end: no shifting
+                innerClaims.remove(i);
+            }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Read response to POST <code>claim-request</code> message type from input json parser, retaining in its
+     * claims structure only claims matching any of the input referents. The parser materializes one inner claim
+     * at a time, so that memory use is bounded by the claims retained rather than the claims in the response.
+     *
+     * @param parser
+     *     json parser on response, not yet advanced or at its first token
+     * @param referents
+     *     the set of referents, as specified in claims json structure, whose corresponding claims to retain
+     *
+     * @return the response, with reduced claims json structure (null for empty response)
+     *
+     * @throws IOException on failure to read or parse response
+     */
+    public static ObjectNode pruneClaims(JsonParser parser, Set<String> referents) throws IOException {
+        if (!parser.hasCurrentToken() && parser.nextToken() == null) {
+            return null;
+        }
+
+        return pruneObject(parser, 0, referents);
+    }
+
+    /**
+     * Read json object at current token of input parser, pruning inner claims below <code>claims.attrs</code>.
+     *
+     * @param parser
+     *     json parser at start of object
+     * @param depth
+     *     depth in response: 0 for response, 1 for claims structure, 2 for its <code>attrs</code>
+     * @param referents
+     *     the set of referents whose corresponding claims to retain
+     *
+     * @return json object read
+     *
+     * @throws IOException on failure to read or parse response
+     */
+    private static ObjectNode pruneObject(JsonParser parser, int depth, Set<String> referents) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, String.format(
+                "Expected json object in claims response, got %s",
+                parser.getCurrentToken()));
+        }
+
+        ObjectMapper mapper = JsonUtil.getDefaultMapper();
+        ObjectNode rv = mapper.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (depth == 0 && "claims".equals(name) && token == JsonToken.START_OBJECT) {
+                rv.set(name, pruneObject(parser, 1, referents));
+            }
+            else if (depth == 1 && "attrs".equals(name) && token == JsonToken.START_OBJECT) {
+                rv.set(name, pruneObject(parser, 2, referents));
+            }
+            else if (depth == 2 && token == JsonToken.START_ARRAY) { // attr0_uuid: [{...}, {...}, ... {...}]
+                ArrayNode innerClaims = rv.putArray(name);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    JsonNode innerClaim = mapper.readTree(parser);
+                    JsonNode referent = innerClaim.get("referent");
+                    if (referent != null && referents.contains(referent.textValue())) {
+                        innerClaims.add(innerClaim);
+                    }
                 }
             }
-            ListIterator<Integer> bumfIter = bumf.listIterator(bumf.size());
-            while (bumfIter.hasPrevious()) { // reverse, to retain indices through deletion
-                claimsByUuidNode.remove(bumfIter.previous());
+            else {
+                rv.set(name, mapper.readTree(parser));
             }
         }
 
@@ -345,14 +674,115 @@ public class Util {
                 .get("eq_proof")
                 .get("revealed_attrs");
 
-            Map<String, String> revealed = new HashMap<>();
-            Iterator<String> attrNames = revealedNode.fieldNames();
-            while (attrNames.hasNext()) {
-                String attrName = attrNames.next();
-                revealed.put(attrName, decode(revealedNode.get(attrName).textValue()));
+            rv.put(referent, decodeAll(revealedNode));
+        }
+
+        return rv;
+    }
+
+    /**
+     * Fetch revealed attributes from proof as it streams through input json parser, as per
+     * <code>revealedAttrs(JsonNode)</code>, without materializing the proof: the parser skips all subtrees
+     * other than the path to <code>proof.proofs.*.primary_proof.eq_proof.revealed_attrs</code>, and decodes
+     * revealed attributes as it reads them.
+     *
+     * @param parser
+     *     json parser on proof structure (at <code>["proof"]</code>) as HolderProver agent returns in response
+     *     to POST <proof-request> message type, not yet advanced or at its first token
+     *
+     * @return map between referents and nested maps from revealed attribute names to (decoded) values; referents
+     *     without revealed attributes do not appear
+     *
+     * @throws IOException on failure to read or parse proof
+     */
+    public static Map<String, Map<String, String>> revealedAttrs(JsonParser parser) throws IOException {
+        Map<String, Map<String, String>> rv = readAt(parser, new String[] {"proof", "proofs"}, p -> {
+            Map<String, Map<String, String>> byReferent = new HashMap<>();
+            if (p.getCurrentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren(); // no referents: not an object
+                return byReferent;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String referent = p.getCurrentName();
+                p.nextToken();
+                Map<String, String> revealed = readAt(
+                    p,
+                    new String[] {"primary_proof", "eq_proof", "revealed_attrs"},
+                    Util::decodeAll);
+                if (revealed != null) {
+                    byReferent.put(referent, revealed);
+                }
+            }
+            return byReferent;
+        });
+
+        return rv == null ? new HashMap<>() : rv;
+    }
+
+    /**
+     * Read value at input path of field names from json object at input parser, skipping all other subtrees,
+     * and consume the rest of the object.
+     *
+     * @param parser
+     *     json parser not yet advanced or at start of object
+     * @param path
+     *     field names leading to value of interest
+     * @param reader
+     *     reader of value of interest, starting at its first token; it must consume the value
+     *
+     * @return reader result, null if path is not present or does not lead through objects
+     *
+     * @throws IOException on failure to read or parse json
+     */
+    static <T> T readAt(JsonParser parser, String[] path, ResponseHandler<T> reader) throws IOException {
+        if (!parser.hasCurrentToken() && parser.nextToken() == null) {
+            return null;
+        }
+
+        return readAt(parser, path, 0, reader);
+    }
+
+    private static <T> T readAt(JsonParser parser, String[] path, int depth, ResponseHandler<T> reader)
+            throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        T rv = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean onPath = path[depth].equals(parser.getCurrentName());
+            parser.nextToken();
+            if (!onPath) {
+                parser.skipChildren(); // no-op on scalar
+            }
+            else if (depth + 1 < path.length) {
+                rv = readAt(parser, path, depth + 1, reader);
+            }
+            else {
+                rv = reader.handle(parser);
             }
+        }
+
+        return rv;
+    }
+
+    /**
+     * Decode all encoded claim values in json dict at input parser, as per <code>decodeAll(JsonNode)</code>.
+     */
+    private static Map<String, String> decodeAll(JsonParser parser) throws IOException {
+        Map<String, String> rv = new HashMap<>();
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren(); // as JsonNode.fields() on non-object: no fields
+            return rv;
+        }
 
-            rv.put(referent, revealed);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (!parser.nextToken().isScalarValue()) {
+                throw new JsonParseException(parser, String.format("Encoded value for [%s] is not scalar", name));
+            }
+            rv.put(name, decode(parser.getText()));
         }
 
         return rv;
@@ -372,26 +802,114 @@ public class Util {
             return raw;
         }
 
-        String rv = raw.trim().replaceAll("(\\p{Upper}+)", "_$1");
-        rv = rv.toLowerCase().replaceAll("[\\p{Punct}\\p{Blank}]+", "_");
+        String lang = Locale.getDefault().getLanguage();
+        if ("tr".equals(lang) || "az".equals(lang) || "lt".equals(lang)) {
+            return toFieldByRegex(raw); // locale-specific lower case: do not memoize
+        }
+
+        String rv = FIELDS.get(raw);
+        if (rv == null) {
+            rv = toFieldByScan(raw);
+            if (rv == null) {
+                rv = toFieldByRegex(raw);
+            }
+            if (FIELDS.size() >= MAX_FIELDS) {
+                FIELDS.clear();
+            }
+            FIELDS.put(raw, rv);
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return database field name corresponding to input in one pass over its characters, as per
+     * <code>toFieldByRegex()</code>; null if input is not all ASCII.
+     */
+    private static String toFieldByScan(String raw) {
+        int start = 0;
+        int end = raw.length();
+        while (start < end && raw.charAt(start) <= ' ') { // as per trim()
+            start++;
+        }
+        while (end > start && raw.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        StringBuilder rv = new StringBuilder(end - start + 4);
+        boolean upperRun = false;
+        boolean sepRun = false;
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c > 0x7f) {
+                return null;
+            }
+
+            boolean upper = (c >= 'A' && c <= 'Z');
+            boolean sep = (upper && !upperRun) || isPunctOrBlank(c); // upper run gets leading underscore
+            if (sep && !sepRun) {
+                rv.append('_');
+            }
+            if (upper) {
+                rv.append((char)(c + ('a' - 'A')));
+            }
+            else if (!sep) {
+                rv.append(c);
+            }
+            upperRun = upper;
+            sepRun = sep && !upper;
+        }
+        for (int i = end; i < raw.length(); i++) {
+            if (raw.charAt(i) > 0x7f) {
+                return null;
+            }
+        }
+
+        if (rv.length() > 0 && rv.charAt(0) == '_' && raw.charAt(0) != '_') {
+            rv.deleteCharAt(0);
+        }
+
+        return rv.toString();
+    }
+
+    /**
+     * Return whether input (ASCII) character is in POSIX classes <code>Punct</code> or <code>Blank</code>.
+     */
+    private static boolean isPunctOrBlank(char c) {
+        return c == ' ' || c == '\t' || (c > ' ' && c < 0x7f && !Character.isLetterOrDigit(c));
+    }
+
+    /**
+     * Return database field name corresponding to input by regex replacement, for any input and locale.
+     */
+    private static String toFieldByRegex(String raw) {
+        String rv = UPPER_RUN.matcher(raw.trim()).replaceAll("_$1");
+        rv = PUNCT_BLANK_RUN.matcher(rv.toLowerCase()).replaceAll("_");
         if (rv.startsWith("_") && !raw.startsWith("_")) {
-            rv = rv.replaceFirst("_", "");
+            rv = rv.substring(1);
         }
 
         return rv;
     }
 
     /**
-     * Convert python-dict pretty-print to JSON heuristically: replace None values with null, single-quoted
-     * string values with double-quoted.
+     * Convert python-dict pretty-print to JSON, as per <code>PyLiteralConverter</code>: python strings, None,
+     * True, False and tuples become their JSON counterparts.
      * 
      * @param ppp
      *      python pretty-print of JSON dict
      *
-     * @return JSON string with correct quotes and nulls
+     * @return JSON string (compact)
+     *
+     * @throws JsonLoadException if input is not a python literal
      */
     public static String pydictpp2Json(String ppp) {
-        return ppp.replaceAll(": None", ": null").replaceAll("'([^']+)'([:\\],}])", "\"$1\"$2");
+        try {
+            return PyLiteralConverter.toJson(ppp);
+        }
+        catch (IOException x) {
+            throw new JsonLoadException(x);
+        }
     }
 
 }
@@ -0,0 +1,152 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>VerificationCache</code> holds outcomes (positive and negative) of <code>verification-request</code>
+ * messages by SHA-256 hash of the verifier and the canonical proof request and proof, so that re-verifying
+ * a proof makes no network call. Configuration properties are:
+ * <ul>
+ *     <li><code>cache.verification.max-entries</code>: maximum number of outcomes to hold (0 to disable)</li>
+ *     <li><code>cache.verification.ttl-ms</code>: time (ms) for outcomes to live; 0 for no expiry</li>.
+ * </ul>
+ */
+public class VerificationCache {
+
+    private BoundedCache<String, JsonNode> cache;
+
+    /**
+     * Construct cache from configuration.
+     */
+    VerificationCache() {
+        this(
+            Config.getInstance().getInt("cache.verification.max-entries", 1024),
+            Config.getInstance().getLong("cache.verification.ttl-ms", 3600000L));
+    }
+
+    /**
+     * Construct cache on bounds.
+     *
+     * @param maxEntries
+     *     maximum number of outcomes
+     * @param ttlMillis
+     *     time (ms) for outcomes to live; 0 for no expiry
+     */
+    VerificationCache(int maxEntries, long ttlMillis) {
+        this.cache = new BoundedCache<>(
+            maxEntries,
+            maxEntries, // unit weight per outcome
+            ttlMillis);
+    }
+
+    /**
+     * Return cache of outcomes, for monitoring (size, hits, misses).
+     *
+     * @return underlying cache
+     */
+    public BoundedCache<String, JsonNode> getCache() {
+        return cache;
+    }
+
+    /**
+     * Return cache key for verification by input agent with input <code>verification-request</code> arguments:
+     * hex SHA-256 hash over the verifier profile and the canonical json of the proof request and proof, streamed
+     * through the digest without building the text. Models (wrapped as POJO nodes) hash as they serialize, their
+     * opaque content as retained from the agent, rather than converting to canonical node trees.
+     *
+     * @param verifier
+     *     verifier agent
+     * @param args
+     *     message arguments: proof request and proof, as json nodes or their (<code>String</code>) json text
+     *
+     * @return key
+     *
+     * @throws IOException on failure to parse <code>String</code> argument as json
+     */
+    String keyFor(Agent verifier, Object[] args) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException x) {
+            throw new IllegalStateException(x); // every JRE supports SHA-256
+        }
+
+        OutputStream sink = new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                // digest only
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                // digest only
+            }
+        }, digest);
+        try (JsonGenerator gen = JsonUtil.getDefaultMapper().getFactory().createGenerator(sink, JsonEncoding.UTF8)) {
+            gen.writeString(verifier.toString());
+            for (Object arg : args) {
+                JsonUtil.writeCanonical(
+                    gen,
+                    arg instanceof JsonNode
+                        ? (JsonNode)arg
+                        : JsonUtil.getDefaultMapper().readTree(String.valueOf(arg)));
+            }
+        }
+
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * Return cached outcome for input key, null for none.
+     *
+     * @param key
+     *     key as per <code>keyFor()</code>
+     *
+     * @return outcome (boolean node), null for none
+     */
+    JsonNode get(String key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Cache outcome for input key if it is a definite (boolean) outcome.
+     *
+     * @param key
+     *     key as per <code>keyFor()</code>
+     * @param response
+     *     response to verification request
+     */
+    void put(String key, JsonNode response) {
+        if (response != null && response.isBoolean()) {
+            cache.put(key, response, 1L);
+        }
+    }
+}
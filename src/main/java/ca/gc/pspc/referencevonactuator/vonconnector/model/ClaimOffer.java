@@ -0,0 +1,53 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ca.gc.pspc.referencevonactuator.vonconnector.SchemaKey;
+
+/**
+ * <code>ClaimOffer</code> models claim offer as Issuer agent returns in response to POST
+ * <code>claim-offer-create</code> message type, for HolderProver agent to store via
+ * <code>claim-offer-store</code>.
+ */
+public class ClaimOffer extends Model {
+
+    @JsonProperty("issuer_did")
+    private String issuerDid;
+
+    @JsonProperty("schema_key")
+    private SchemaKey schemaKey;
+
+    /**
+     * Return DID of issuer offering claim.
+     *
+     * @return issuer DID
+     */
+    public String getIssuerDid() {
+        return issuerDid;
+    }
+
+    /**
+     * Return key of schema on which issuer offers claim.
+     *
+     * @return schema key
+     */
+    public SchemaKey getSchemaKey() {
+        return schemaKey;
+    }
+}
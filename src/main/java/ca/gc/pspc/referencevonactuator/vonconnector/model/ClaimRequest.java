@@ -0,0 +1,64 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ca.gc.pspc.referencevonactuator.vonconnector.SchemaKey;
+
+/**
+ * <code>ClaimRequest</code> models claim request as HolderProver agent returns in response to POST
+ * <code>claim-offer-store</code> message type, for Issuer agent to fill via <code>claim-create</code>.
+ */
+public class ClaimRequest extends Model {
+
+    @JsonProperty("issuer_did")
+    private String issuerDid;
+
+    @JsonProperty("prover_did")
+    private String proverDid;
+
+    @JsonProperty("schema_key")
+    private SchemaKey schemaKey;
+
+    /**
+     * Return DID of issuer of claim offer.
+     *
+     * @return issuer DID
+     */
+    public String getIssuerDid() {
+        return issuerDid;
+    }
+
+    /**
+     * Return DID of HolderProver requesting claim.
+     *
+     * @return prover DID
+     */
+    public String getProverDid() {
+        return proverDid;
+    }
+
+    /**
+     * Return key of schema on which HolderProver requests claim.
+     *
+     * @return schema key
+     */
+    public SchemaKey getSchemaKey() {
+        return schemaKey;
+    }
+}
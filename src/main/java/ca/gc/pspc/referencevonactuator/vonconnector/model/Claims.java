@@ -0,0 +1,54 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * <code>Claims</code> models claims structure (at <code>["claims"]</code>) as HolderProver agent returns in
+ * response to POST <code>claim-request</code> message type: claims by attribute and predicate UUIDs of
+ * proof request.
+ */
+public class Claims extends Model {
+
+    @JsonProperty("attrs")
+    private Map<String, List<InnerClaim>> attrs;
+
+    @JsonProperty("predicates")
+    private Map<String, List<InnerClaim>> predicates;
+
+    /**
+     * Return claims by attribute UUID.
+     *
+     * @return claims by attribute UUID
+     */
+    public Map<String, List<InnerClaim>> getAttrs() {
+        return attrs;
+    }
+
+    /**
+     * Return claims by predicate UUID.
+     *
+     * @return claims by predicate UUID
+     */
+    public Map<String, List<InnerClaim>> getPredicates() {
+        return predicates;
+    }
+}
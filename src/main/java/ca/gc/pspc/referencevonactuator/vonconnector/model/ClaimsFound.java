@@ -0,0 +1,50 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * <code>ClaimsFound</code> models response of HolderProver agent to POST <code>claim-request</code> message type:
+ * proof request and claims that could satisfy it.
+ */
+public class ClaimsFound extends Model {
+
+    @JsonProperty("proof-req")
+    private ProofRequest proofReq;
+
+    @JsonProperty("claims")
+    private Claims claims;
+
+    /**
+     * Return proof request.
+     *
+     * @return proof request
+     */
+    public ProofRequest getProofReq() {
+        return proofReq;
+    }
+
+    /**
+     * Return claims.
+     *
+     * @return claims
+     */
+    public Claims getClaims() {
+        return claims;
+    }
+}
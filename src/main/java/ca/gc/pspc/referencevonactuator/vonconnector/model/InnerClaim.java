@@ -0,0 +1,92 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ca.gc.pspc.referencevonactuator.vonconnector.SchemaKey;
+
+/**
+ * <code>InnerClaim</code> models claim in claims structure as HolderProver agent returns in response to POST
+ * <code>claim-request</code> message type; e.g., {
+ *     "referent": "claim::00000000-0000-0000-0000-000000000000",
+ *     "attrs": {
+ *         "attr0": "2",
+ *         "attr1": "Hello",
+ *         "attr2": "World"
+ *     },
+ *     "issuer_did": "Q4zqM7aXqm7gDQkUVLng9h",
+ *     "schema_key": {
+ *         "did": "Q4zqM7aX...",
+ *         "name": "bc-reg",
+ *         "version": "1.0"
+ *     },
+ *     "revoc_reg_seq_no": null
+ * }
+ */
+public class InnerClaim extends Model {
+
+    @JsonProperty("referent")
+    private String referent;
+
+    @JsonProperty("attrs")
+    private Map<String, String> attrs;
+
+    @JsonProperty("issuer_did")
+    private String issuerDid;
+
+    @JsonProperty("schema_key")
+    private SchemaKey schemaKey;
+
+    /**
+     * Return referent (wallet claim-uuid).
+     *
+     * @return referent
+     */
+    public String getReferent() {
+        return referent;
+    }
+
+    /**
+     * Return claim attribute values by name.
+     *
+     * @return attribute values
+     */
+    public Map<String, String> getAttrs() {
+        return attrs;
+    }
+
+    /**
+     * Return DID of issuer.
+     *
+     * @return issuer DID
+     */
+    public String getIssuerDid() {
+        return issuerDid;
+    }
+
+    /**
+     * Return key of schema on which issuer created claim.
+     *
+     * @return schema key
+     */
+    public SchemaKey getSchemaKey() {
+        return schemaKey;
+    }
+}
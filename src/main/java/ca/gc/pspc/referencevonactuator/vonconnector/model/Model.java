@@ -0,0 +1,217 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonLoadException;
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+/**
+ * <code>Model</code> is the base for typed models of protocol message content. Subclasses bind the fields that
+ * the VON connector uses; this base retains any other fields (e.g., opaque cryptographic material) as compact
+ * json text rather than as json node trees, so that a model round-trips to the agents intact without holding a
+ * map per json object in memory. Absent typed fields do not serialize; typed fields that arrive as explicit json
+ * null do, as <code>ModelModule</code> has this base retain them as other fields.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public abstract class Model {
+
+    private static final String[] NONE = new String[0];
+
+    /**
+     * Other fields, as alternating field names and compact json values; typed fields arriving as json null
+     * appear here (with null typed values).
+     */
+    private String[] other = NONE;
+
+    /**
+     * Return fields that the model does not bind to typed properties, by name, as raw json values.
+     *
+     * @return other fields
+     */
+    @JsonAnyGetter
+    public Map<String, RawValue> getOther() {
+        Map<String, RawValue> rv = new LinkedHashMap<>();
+        for (int i = 0; i < other.length; i += 2) {
+            rv.put(other[i], new RawValue(other[i + 1]));
+        }
+
+        return rv;
+    }
+
+    /**
+     * Return json node for field that the model does not bind to a typed property.
+     *
+     * @param name
+     *     field name
+     *
+     * @return json node for field value, null if model has no such field
+     */
+    public JsonNode getOther(String name) {
+        for (int i = 0; i < other.length; i += 2) {
+            if (other[i].equals(name)) {
+                return JsonUtil.getJsonNodeFromStringContent(other[i + 1]);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Retain field that the model does not bind to a typed property.
+     *
+     * @param name
+     *     field name
+     * @param json
+     *     field value as compact json
+     */
+    @JsonAnySetter
+    @JsonDeserialize(using = CompactJsonDeserializer.class)
+    public void setOther(String name, String json) {
+        for (int i = 0; i < other.length; i += 2) {
+            if (other[i].equals(name)) {
+                other[i + 1] = json; // last one wins, as for json nodes
+                return;
+            }
+        }
+        other = Arrays.copyOf(other, other.length + 2);
+        other[other.length - 2] = name;
+        other[other.length - 1] = json;
+    }
+
+    /**
+     * Retain explicit json null for typed field, so that it serializes back as it arrived.
+     *
+     * @param name
+     *     field name
+     */
+    void setNull(String name) {
+        setOther(name, "null");
+    }
+
+    /**
+     * Return json node representation of model: typed fields convert to nodes directly, and only the retained
+     * json text of other fields parses. To send a model to an agent, use <code>toPojoNode()</code> instead.
+     *
+     * @return json node
+     *
+     * @throws JsonLoadException on failure to marshall model to json node
+     */
+    public JsonNode toJson() {
+        return resolveRaw(JsonUtil.getDefaultMapper().valueToTree(this));
+    }
+
+    /**
+     * Return json node wrapping model as is, for slotting into outgoing messages: the model writes its typed
+     * fields and retained json text straight onto the request as it goes out, without building a node tree.
+     * It writes as per the writer at hand (e.g., compact), not as per the default mapper.
+     *
+     * @return json node wrapping model
+     */
+    public JsonNode toPojoNode() {
+        return new POJONode(new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+                provider.defaultSerializeValue(Model.this, gen);
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+                    throws IOException {
+                serialize(gen, provider);
+            }
+        });
+    }
+
+    /**
+     * Replace raw values (as other fields of models at any depth convert) with their parsed json nodes.
+     */
+    private static JsonNode resolveRaw(JsonNode node) {
+        if (node.isPojo() && ((POJONode)node).getPojo() instanceof RawValue) {
+            return JsonUtil.getJsonNodeFromStringContent(((RawValue)((POJONode)node).getPojo()).rawValue().toString());
+        }
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                field.setValue(resolveRaw(field.getValue()));
+            }
+        }
+        else if (node.isArray()) {
+            ArrayNode array = (ArrayNode)node;
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, resolveRaw(array.get(i)));
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Return compact json representation.
+     *
+     * @return compact json
+     */
+    @Override
+    public String toString() {
+        try {
+            return JsonUtil.getCompactWriter().writeValueAsString(this);
+        }
+        catch (JsonProcessingException x) {
+            return String.format("%s(%s)", getClass().getSimpleName(), x.getMessage());
+        }
+    }
+
+    /**
+     * Deserializer copying json value at parser into compact json text, without building a json node tree.
+     */
+    static class CompactJsonDeserializer extends JsonDeserializer<String> {
+
+        @Override
+        public String deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+            StringWriter rv = new StringWriter();
+            try (JsonGenerator gen = parser.getCodec().getFactory().createGenerator(rv)) {
+                gen.copyCurrentStructure(parser);
+            }
+
+            return rv.toString();
+        }
+    }
+}
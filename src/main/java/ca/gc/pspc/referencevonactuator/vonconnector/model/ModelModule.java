@@ -0,0 +1,143 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * <code>ModelModule</code> has typed fields of models that arrive as explicit json null retain their nulls (as
+ * other fields of the <code>Model</code> base), so that models round-trip faithfully although absent typed
+ * fields do not serialize. The default mapper registers it by service loader, from
+ * <code>META-INF/services/com.fasterxml.jackson.databind.Module</code>.
+ */
+public class ModelModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Construct module.
+     */
+    public ModelModule() {
+        super(ModelModule.class.getSimpleName());
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public BeanDeserializerBuilder updateBuilder(
+                    DeserializationConfig config,
+                    BeanDescription beanDesc,
+                    BeanDeserializerBuilder builder) {
+                if (Model.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                    List<SettableBeanProperty> props = new ArrayList<>();
+                    Iterator<SettableBeanProperty> it = builder.getProperties();
+                    while (it.hasNext()) {
+                        props.add(it.next());
+                    }
+                    for (SettableBeanProperty prop : props) {
+                        builder.addOrReplaceProperty(new NullKeepingProperty(prop), true);
+                    }
+                }
+                return builder;
+            }
+        });
+    }
+
+    /**
+     * <code>NullKeepingProperty</code> delegates to a typed model property, retaining json null on the model
+     * before setting it.
+     */
+    static class NullKeepingProperty extends SettableBeanProperty {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SettableBeanProperty delegate;
+
+        NullKeepingProperty(SettableBeanProperty delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public SettableBeanProperty withValueDeserializer(JsonDeserializer<?> deser) {
+            return new NullKeepingProperty(delegate.withValueDeserializer(deser));
+        }
+
+        @Override
+        public SettableBeanProperty withName(PropertyName newName) {
+            return new NullKeepingProperty(delegate.withName(newName));
+        }
+
+        @Override
+        public void fixAccess(DeserializationConfig config) {
+            delegate.fixAccess(config);
+        }
+
+        @Override
+        public AnnotatedMember getMember() {
+            return delegate.getMember();
+        }
+
+        @Override
+        public <A extends Annotation> A getAnnotation(Class<A> acls) {
+            return delegate.getAnnotation(acls);
+        }
+
+        @Override
+        public void deserializeAndSet(JsonParser parser, DeserializationContext ctxt, Object instance)
+                throws IOException {
+            if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+                ((Model)instance).setNull(getName());
+            }
+            delegate.deserializeAndSet(parser, ctxt, instance);
+        }
+
+        @Override
+        public Object deserializeSetAndReturn(JsonParser parser, DeserializationContext ctxt, Object instance)
+                throws IOException {
+            if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+                ((Model)instance).setNull(getName());
+            }
+            return delegate.deserializeSetAndReturn(parser, ctxt, instance);
+        }
+
+        @Override
+        public void set(Object instance, Object value) throws IOException {
+            delegate.set(instance, value);
+        }
+
+        @Override
+        public Object setAndReturn(Object instance, Object value) throws IOException {
+            return delegate.setAndReturn(instance, value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonLoadException;
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+import ca.gc.pspc.referencevonactuator.vonconnector.Util;
+
+/**
+ * <code>Proof</code> models proof (at <code>["proof"]</code>) as HolderProver agent returns in response to POST
+ * <code>proof-request</code> and <code>proof-request-by-referent</code> message types. Its content is
+ * cryptographic material for the verifier, which the model retains opaquely.
+ */
+public class Proof extends Model {
+
+    /**
+     * Return revealed attributes as per <code>Util.revealedAttrs()</code>, streaming the retained json text of
+     * the proof through a parser rather than building its json node tree.
+     *
+     * @return map between referents and nested maps from revealed attribute names to (decoded) values
+     *
+     * @throws JsonLoadException on failure to read proof
+     */
+    public Map<String, Map<String, String>> revealedAttrs() {
+        try (JsonParser parser = JsonUtil.getDefaultMapper().getFactory().createParser(
+                JsonUtil.getCompactWriter().writeValueAsString(this))) {
+            return Util.revealedAttrs(parser);
+        }
+        catch (IOException x) {
+            throw new JsonLoadException(x);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * <code>ProofRequest</code> models proof request (at <code>["proof-req"]</code>) as HolderProver agent returns
+ * in response to POST <code>claim-request</code> and <code>proof-request</code> message types.
+ */
+public class ProofRequest extends Model {
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("version")
+    private String version;
+
+    @JsonProperty("nonce")
+    private String nonce;
+
+    @JsonProperty("requested_attrs")
+    private Map<String, JsonNode> requestedAttrs;
+
+    @JsonProperty("requested_predicates")
+    private Map<String, JsonNode> requestedPredicates;
+
+    /**
+     * Return proof request name.
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return proof request version.
+     *
+     * @return version
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Return proof request nonce.
+     *
+     * @return nonce
+     */
+    public String getNonce() {
+        return nonce;
+    }
+
+    /**
+     * Return requested attribute specifications (each with <code>name</code> and any restrictions) by attribute
+     * UUID.
+     *
+     * @return requested attributes
+     */
+    public Map<String, JsonNode> getRequestedAttrs() {
+        return requestedAttrs;
+    }
+
+    /**
+     * Return requested predicate specifications (each with <code>attr_name</code>, <code>p_type</code>,
+     * <code>value</code>, and any restrictions) by predicate UUID.
+     *
+     * @return requested predicates
+     */
+    public Map<String, JsonNode> getRequestedPredicates() {
+        return requestedPredicates;
+    }
+}
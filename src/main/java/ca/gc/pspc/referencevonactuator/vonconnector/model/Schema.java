@@ -0,0 +1,116 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * <code>Schema</code> models schema as the trust anchor returns in response to POST <code>schema-lookup</code>
+ * message type; e.g., {
+ *     "identifier": "Q4zqM7aXqm7gDQkUVLng9h",
+ *     "seqNo": 15,
+ *     "data": {
+ *         "name": "bc-reg",
+ *         "version": "1.0",
+ *         "attr_names": ["id", "busId", "orgTypeId", ...]
+ *     },
+ *     ...
+ * }
+ * The response is empty (all properties null) for no such schema.
+ */
+public class Schema extends Model {
+
+    @JsonProperty("identifier")
+    private String identifier;
+
+    @JsonProperty("seqNo")
+    private Integer seqNo;
+
+    @JsonProperty("data")
+    private Data data;
+
+    /**
+     * Return DID of schema originator.
+     *
+     * @return origin DID
+     */
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Return schema sequence number on the ledger.
+     *
+     * @return sequence number
+     */
+    public Integer getSeqNo() {
+        return seqNo;
+    }
+
+    /**
+     * Return schema data: name, version, attribute names.
+     *
+     * @return schema data
+     */
+    public Data getData() {
+        return data;
+    }
+
+    /**
+     * <code>Data</code> models schema data (at <code>["data"]</code>).
+     */
+    public static class Data extends Model {
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("version")
+        private String version;
+
+        @JsonProperty("attr_names")
+        private List<String> attrNames;
+
+        /**
+         * Return schema name.
+         *
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Return schema version.
+         *
+         * @return version
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Return schema attribute names.
+         *
+         * @return attribute names
+         */
+        public List<String> getAttrNames() {
+            return attrNames;
+        }
+    }
+}
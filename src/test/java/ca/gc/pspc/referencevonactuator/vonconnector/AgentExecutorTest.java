@@ -0,0 +1,247 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>AgentExecutor</code>. Its lanes cap calls at each agent's concurrency limit, which stays
+ * at its initial value here since no call reports an outcome to it.
+ */
+public class AgentExecutorTest extends TestCase {
+
+    private static final Agent AGENT = Agent.BC_REGISTRAR;
+
+    private AgentExecutor executor = AgentExecutor.getInstance();
+
+    /**
+     * Wait (briefly) until input count reaches input value.
+     */
+    private static void awaitCount(AtomicInteger count, int value) throws InterruptedException {
+        long expiry = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.get() != value) {
+            assertTrue(String.format("Count %d never reached %d", count.get(), value), System.nanoTime() < expiry);
+            Thread.sleep(5L);
+        }
+    }
+
+    private void awaitLaneIdle() throws InterruptedException {
+        long expiry = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getInFlight(AGENT) != 0) {
+            assertTrue("Lane never went idle", System.nanoTime() < expiry);
+            Thread.sleep(5L);
+        }
+    }
+
+    public void testLaneCap() throws Exception {
+        int cap = executor.getMaxInFlight(AGENT);
+        assertTrue(cap > 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 3 * cap; i++) {
+            int index = i;
+            futures.add(executor.submit(AGENT, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                }
+                finally {
+                    running.decrementAndGet();
+                }
+                return index;
+            }));
+        }
+
+        awaitCount(running, cap);
+        Thread.sleep(100L); // give any call beyond cap time to start
+        assertEquals(cap, running.get());
+        assertEquals(cap, executor.getInFlight(AGENT));
+
+        release.countDown();
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, AgentExecutor.await(futures.get(i)).intValue());
+        }
+        assertEquals(cap, maxRunning.get());
+        awaitLaneIdle();
+    }
+
+    public void testLaneOrder() throws Exception {
+        int cap = executor.getMaxInFlight(AGENT);
+        AtomicInteger running = new AtomicInteger();
+        Semaphore release = new Semaphore(0);
+        List<CompletableFuture<Object>> blockers = new ArrayList<>();
+        for (int i = 0; i < cap; i++) { // fill lane
+            blockers.add(executor.submit(AGENT, () -> {
+                running.incrementAndGet();
+                release.acquire();
+                return null;
+            }));
+        }
+        awaitCount(running, cap);
+
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int index = i;
+            queued.add(executor.submit(AGENT, () -> order.add(index)));
+        }
+        assertTrue(order.isEmpty());
+
+        release.release(); // one slot frees: queued calls pass through it one at a time, in order
+        for (CompletableFuture<Boolean> future : queued) {
+            assertTrue(AgentExecutor.await(future));
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, order);
+
+        release.release(cap - 1);
+        for (CompletableFuture<Object> blocker : blockers) {
+            AgentExecutor.await(blocker);
+        }
+        awaitLaneIdle();
+    }
+
+    public void testLanesIndependent() throws Exception {
+        int cap = executor.getMaxInFlight(AGENT);
+        AtomicInteger running = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Object>> blockers = new ArrayList<>();
+        for (int i = 0; i < cap; i++) {
+            blockers.add(executor.submit(AGENT, () -> {
+                running.incrementAndGet();
+                release.await();
+                return null;
+            }));
+        }
+        awaitCount(running, cap);
+
+        try {
+            assertEquals("ok", executor.submit(Agent.PSPC_ORG_BOOK, () -> "ok").get(5, TimeUnit.SECONDS));
+        }
+        catch (TimeoutException x) {
+            fail("Full lane for one agent held up call to another");
+        }
+        finally {
+            release.countDown();
+        }
+        for (CompletableFuture<Object> blocker : blockers) {
+            AgentExecutor.await(blocker);
+        }
+        awaitLaneIdle();
+    }
+
+    public void testDeadlinePropagates() throws Exception {
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        Deadline.Scope scope = deadline.enter();
+        try {
+            assertSame(deadline, AgentExecutor.await(executor.submit(AGENT, Deadline::current)));
+        }
+        finally {
+            scope.close();
+        }
+
+        List<CompletableFuture<Deadline>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) { // pooled threads leave deadline scope after each call
+            futures.add(executor.submit(AGENT, Deadline::current));
+        }
+        for (CompletableFuture<Deadline> future : futures) {
+            assertNull(AgentExecutor.await(future));
+        }
+    }
+
+    public void testAwaitUnwrapsIOException() {
+        IOException cause = new IOException("io");
+        try {
+            AgentExecutor.await(executor.submit(AGENT, () -> {
+                throw cause;
+            }));
+            fail("Expected IOException");
+        }
+        catch (IOException x) {
+            assertSame(cause, x);
+        }
+    }
+
+    public void testAwaitUnwrapsUnchecked() throws IOException {
+        IllegalStateException runtime = new IllegalStateException("runtime");
+        try {
+            AgentExecutor.await(executor.submit(AGENT, () -> {
+                throw runtime;
+            }));
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException x) {
+            assertSame(runtime, x);
+        }
+
+        AssertionError error = new AssertionError("error");
+        try {
+            AgentExecutor.await(executor.submit(AGENT, () -> {
+                throw error;
+            }));
+            fail("Expected AssertionError");
+        }
+        catch (AssertionError x) {
+            assertSame(error, x);
+        }
+    }
+
+    public void testAwaitWrapsCheckedException() {
+        Exception cause = new Exception("checked");
+        try {
+            AgentExecutor.await(executor.submit(AGENT, () -> {
+                throw cause;
+            }));
+            fail("Expected IOException");
+        }
+        catch (IOException x) {
+            assertSame(cause, x.getCause());
+        }
+    }
+
+    public void testAwaitInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            AgentExecutor.await(new CompletableFuture<Object>());
+            fail("Expected InterruptedIOException");
+        }
+        catch (InterruptedIOException x) {
+            assertTrue(Thread.interrupted()); // restores interrupt status, clearing it here
+        }
+        catch (IOException x) {
+            fail(String.format("Expected InterruptedIOException, got %s", x));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for DID resolution and discovery in <code>Agent</code>, over a stub transport per agent.
+ */
+public class AgentTest extends TestCase {
+
+    private ExecutorService pool;
+
+    /**
+     * <code>StubTransport</code> answers DID requests, failing to connect for its first calls as specified,
+     * and holding each call until released; it records the time of each call.
+     */
+    private static class StubTransport implements AgentTransport {
+        private String did;
+        private int failures;
+        private CountDownLatch release = new CountDownLatch(0);
+        private List<Long> callNanos = Collections.synchronizedList(new ArrayList<>());
+
+        StubTransport(String did, int failures) {
+            this.did = did;
+            this.failures = failures;
+        }
+
+        @Override
+        public <T> T exchange(
+                HttpMethod method,
+                URL url,
+                Map<String, String> headers,
+                Object body,
+                ResponseHandler<T> handler,
+                int timeoutMillis) throws IOException {
+            int call = callNanos.size();
+            callNanos.add(System.nanoTime());
+            if (call < failures) {
+                throw new ConnectException(String.format("Stub refuses call %d", call));
+            }
+            try {
+                release.await();
+            }
+            catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+                throw new IOException(x);
+            }
+            String content = did == null ? "" : String.format("\"%s\"", did);
+            try (JsonParser parser = JsonUtil.getDefaultMapper().getFactory().createParser(content)) {
+                return handler.handle(parser);
+            }
+        }
+    }
+
+    @Override
+    protected void setUp() {
+        pool = Executors.newCachedThreadPool();
+        for (Agent ag : Agent.values()) {
+            ag.forgetDid();
+            ag.setTransport(new StubTransport(String.format("did:%s", ag), 0));
+        }
+    }
+
+    @Override
+    protected void tearDown() {
+        pool.shutdownNow();
+        for (Agent ag : Agent.values()) {
+            ag.forgetDid();
+            ag.setTransport(PooledTransport.getInstance());
+        }
+    }
+
+    private static void awaitAvailable(Agent agent, long timeoutMillis) throws InterruptedException {
+        long expiry = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!agent.isAvailable()) {
+            assertTrue(String.format("Agent [%s] never resolved DID", agent), System.nanoTime() < expiry);
+            Thread.sleep(10L);
+        }
+    }
+
+    private static long gapMillis(List<Long> callNanos, int call) {
+        return TimeUnit.NANOSECONDS.toMillis(callNanos.get(call) - callNanos.get(call - 1));
+    }
+
+    public void testDiscover() {
+        assertEquals(EnumSet.allOf(Agent.class), Agent.discover(5, TimeUnit.SECONDS));
+        for (Agent ag : Agent.values()) {
+            assertEquals(String.format("did:%s", ag), ag.getDid());
+        }
+    }
+
+    public void testRediscoverAfterBackoff() throws Exception {
+        int attempts = CallPolicy.forGet().getMaxAttempts();
+        long retryMillis = Config.getInstance().getLong("discovery.retry-ms", 1000L);
+        StubTransport stub = new StubTransport("did:sri", 2 * attempts); // fail discovery and first rediscovery
+        Agent.SRI.setTransport(stub);
+
+        Set<Agent> discovered = Agent.discover(5, TimeUnit.SECONDS);
+        assertEquals(EnumSet.complementOf(EnumSet.of(Agent.SRI)), discovered);
+        assertFalse(Agent.SRI.isAvailable());
+        assertEquals(attempts, stub.callNanos.size());
+
+        awaitAvailable(Agent.SRI, 10 * retryMillis);
+        assertEquals("did:sri", Agent.SRI.getDid());
+        assertEquals(2 * attempts + 1, stub.callNanos.size());
+        assertTrue(gapMillis(stub.callNanos, attempts) >= retryMillis * 9 / 10); // backs off
+        assertTrue(gapMillis(stub.callNanos, 2 * attempts) >= 2 * retryMillis * 9 / 10); // and doubles
+
+        Thread.sleep(2 * retryMillis);
+        assertEquals(2 * attempts + 1, stub.callNanos.size()); // stops once resolved
+    }
+
+    public void testResolveDidOnceUnderConcurrency() throws Exception {
+        StubTransport stub = new StubTransport("did:ta", 0);
+        stub.release = new CountDownLatch(1);
+        Agent.TRUST_ANCHOR.setTransport(stub);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(Agent.TRUST_ANCHOR::resolveDid));
+        }
+        Thread.sleep(200L); // let callers pile up behind first
+        assertEquals(1, stub.callNanos.size());
+        stub.release.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("did:ta", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("did:ta", Agent.TRUST_ANCHOR.getDid());
+        assertEquals(1, stub.callNanos.size());
+    }
+
+    public void testResolveDidRetriesAfterFailure() throws Exception {
+        int attempts = CallPolicy.forGet().getMaxAttempts();
+        StubTransport stub = new StubTransport("did:bc", attempts);
+        Agent.BC_ORG_BOOK.setTransport(stub);
+        try {
+            Agent.BC_ORG_BOOK.resolveDid();
+            fail("Expected ConnectException on agent unavailable");
+        }
+        catch (ConnectException x) {
+            // expected
+        }
+        assertFalse(Agent.BC_ORG_BOOK.isAvailable());
+        assertEquals("did:bc", Agent.BC_ORG_BOOK.resolveDid()); // failure does not stick
+        assertEquals(attempts + 1, stub.callNanos.size());
+    }
+
+    public void testResolveNoDid() throws Exception {
+        Agent.PSPC_ORG_BOOK.setTransport(new StubTransport(null, 0));
+        try {
+            Agent.PSPC_ORG_BOOK.resolveDid();
+            fail("Expected IOException on empty response");
+        }
+        catch (IOException x) {
+            assertTrue(x.getMessage(), x.getMessage().contains("returned no DID"));
+        }
+        assertFalse(Agent.PSPC_ORG_BOOK.isAvailable());
+    }
+}
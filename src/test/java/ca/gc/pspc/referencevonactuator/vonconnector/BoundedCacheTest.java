@@ -0,0 +1,102 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>BoundedCache</code>.
+ */
+public class BoundedCacheTest extends TestCase {
+
+    public void testEvictsLeastRecentlyUsedPastMaxEntries() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 100L, 0L);
+        cache.put("a", "A", 1L);
+        cache.put("b", "B", 1L);
+        assertEquals("A", cache.get("a")); // b now least recently used
+        cache.put("c", "C", 1L);
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    public void testEvictsPastMaxWeight() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 10L, 0L);
+        cache.put("a", "A", 4L);
+        cache.put("b", "B", 4L);
+        cache.put("c", "C", 4L);
+
+        assertEquals(2, cache.size());
+        assertEquals(8L, cache.getWeight());
+        assertNull(cache.get("a"));
+
+        cache.put("b", "B2", 1L); // replaces, reweighs
+        assertEquals(5L, cache.getWeight());
+        assertEquals("B2", cache.get("b"));
+    }
+
+    public void testRejectsOverweightValue() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 10L, 0L);
+        cache.put("a", "A", 4L);
+        cache.put("a", "A2", 11L);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.getWeight());
+
+        BoundedCache<String, String> none = new BoundedCache<>(0, 10L, 0L);
+        none.put("a", "A", 1L);
+        assertNull(none.get("a"));
+    }
+
+    public void testExpiresPastTtl() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 10L, 20L);
+        cache.put("a", "A", 1L);
+        assertEquals("A", cache.get("a"));
+
+        Thread.sleep(50L);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.getWeight());
+        assertEquals(1L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+    }
+
+    public void testRemovesAndCounts() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 100L, 0L);
+        cache.put("a1", "A1", 2L);
+        cache.put("a2", "A2", 3L);
+        cache.put("b1", "B1", 5L);
+
+        assertEquals(2, cache.removeIf(k -> k.startsWith("a")));
+        assertEquals(5L, cache.getWeight());
+        assertEquals("B1", cache.remove("b1"));
+        assertNull(cache.remove("b1"));
+        assertEquals(0L, cache.getWeight());
+
+        cache.put("c", "C", 1L);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.getWeight());
+        assertNull(cache.get("c"));
+        assertEquals(0L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+    }
+}
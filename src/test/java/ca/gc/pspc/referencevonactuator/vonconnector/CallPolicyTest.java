@@ -0,0 +1,84 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>CallPolicy</code>.
+ */
+public class CallPolicyTest extends TestCase {
+
+    public void testRetriesOnlyIdempotentMessageTypes() {
+        int maxAttempts = Config.getInstance().getInt("policy.default.max-attempts", 3);
+        assertTrue(maxAttempts > 1);
+        for (MessageType msgType : MessageType.values()) {
+            assertEquals(
+                msgType.getSlug(),
+                msgType.isIdempotent() ? maxAttempts : 1,
+                CallPolicy.forMessageType(msgType).getMaxAttempts());
+        }
+        assertEquals(maxAttempts, CallPolicy.forGet().getMaxAttempts());
+    }
+
+    public void testConfiguredTimeouts() {
+        assertEquals(60000, CallPolicy.forMessageType(MessageType.VERIFICATION_REQUEST).getTimeoutMillis());
+        assertEquals(30000, CallPolicy.forMessageType(MessageType.CLAIM_CREATE).getTimeoutMillis());
+        assertEquals(10000, CallPolicy.forGet().getTimeoutMillis());
+        assertSame(CallPolicy.forGet(), CallPolicy.forGet());
+    }
+
+    public void testAtLeastOneAttempt() {
+        assertEquals(1, new CallPolicy(1000, 0, 100L, 1000L).getMaxAttempts());
+        assertEquals(1, new CallPolicy(1000, -1, 100L, 1000L).getMaxAttempts());
+    }
+
+    public void testBackoffJitteredWithinUpperHalf() {
+        CallPolicy policy = new CallPolicy(1000, 3, 100L, 1000L);
+        long[] ceilings = { 100L, 200L, 400L, 800L, 1000L, 1000L };
+        for (int attempt = 1; attempt <= ceilings.length; attempt++) {
+            long ceiling = ceilings[attempt - 1];
+            Set<Long> delays = new HashSet<>();
+            for (int i = 0; i < 200; i++) {
+                long delay = policy.backoffMillis(attempt);
+                assertTrue(
+                    String.format("Attempt %d backoff %d outside [%d, %d]", attempt, delay, ceiling / 2, ceiling),
+                    delay >= ceiling / 2 && delay <= ceiling);
+                delays.add(delay);
+            }
+            assertTrue(String.format("Attempt %d backoff not jittered", attempt), delays.size() > 1);
+        }
+    }
+
+    public void testBackoffCappedOnOverflow() {
+        CallPolicy policy = new CallPolicy(1000, 3, Long.MAX_VALUE / 4, 5000L);
+        for (int attempt : new int[] { 1, 3, 21, 64, Integer.MAX_VALUE }) {
+            long delay = policy.backoffMillis(attempt);
+            assertTrue(String.format("Attempt %d backoff %d", attempt, delay), delay >= 2500L && delay <= 5000L);
+        }
+    }
+
+    public void testNoBackoff() {
+        CallPolicy policy = new CallPolicy(1000, 3, 0L, 5000L);
+        assertEquals(0L, policy.backoffMillis(1));
+        assertEquals(0L, policy.backoffMillis(10));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>CircuitBreaker</code>, on configured window of 20 calls, minimum 10 calls, trip at 50%
+ * failed or 80% slow (20 s) calls. Breakers that trip schedule probes only after the configured probe interval.
+ */
+public class CircuitBreakerTest extends TestCase {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(20);
+
+    private static void record(CircuitBreaker breaker, int calls, IOException x, long elapsedNanos) {
+        for (int i = 0; i < calls; i++) {
+            breaker.record(x, elapsedNanos);
+        }
+    }
+
+    public void testCountsServerErrorsAsFailures() {
+        assertFalse(CircuitBreaker.isFailure(null));
+        assertFalse(CircuitBreaker.isFailure(new HttpStatusException("Not found", 404)));
+        assertTrue(CircuitBreaker.isFailure(new HttpStatusException("Bad gateway", 502)));
+        assertTrue(CircuitBreaker.isFailure(new IOException("Connection refused")));
+    }
+
+    public void testStaysClosedBelowMinCalls() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(Agent.SRI);
+        record(breaker, 9, new IOException(), FAST);
+
+        assertFalse(breaker.isOpen());
+        breaker.check();
+    }
+
+    public void testOpensAtFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(Agent.SRI);
+        record(breaker, 10, null, FAST);
+        record(breaker, 9, new IOException(), FAST);
+        assertFalse(breaker.isOpen()); // 9 of 19
+
+        breaker.record(new IOException(), FAST); // 10 of 20
+        assertTrue(breaker.isOpen());
+        try {
+            breaker.check();
+            fail("Expected CircuitOpenException on open breaker");
+        }
+        catch (CircuitOpenException x) {
+            // expected
+        }
+    }
+
+    public void testStaysClosedOnClientErrors() {
+        CircuitBreaker breaker = new CircuitBreaker(Agent.SRI);
+        record(breaker, 20, new HttpStatusException("Bad request", 400), FAST);
+
+        assertFalse(breaker.isOpen());
+    }
+
+    public void testOpensAtSlowCallRate() {
+        CircuitBreaker breaker = new CircuitBreaker(Agent.SRI);
+        record(breaker, 7, null, SLOW);
+        record(breaker, 3, null, FAST);
+        assertFalse(breaker.isOpen()); // 7 of 10
+
+        breaker.record(null, SLOW); // 8 of 11, under 80%
+        assertFalse(breaker.isOpen());
+        record(breaker, 4, null, SLOW); // 12 of 15
+        assertTrue(breaker.isOpen());
+    }
+
+    public void testWindowForgetsOldestCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(Agent.SRI);
+        record(breaker, 11, null, FAST);
+        record(breaker, 9, new IOException(), FAST);
+        assertFalse(breaker.isOpen()); // 9 of 20
+
+        record(breaker, 20, null, FAST); // failures roll out of window
+        record(breaker, 9, new IOException(), FAST);
+        assertFalse(breaker.isOpen()); // 9 of 20, 18 of all 49
+
+        breaker.record(new IOException(), FAST); // 10 of 20
+        assertTrue(breaker.isOpen());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>ClaimIndex</code>, against one-shot filtering in <code>Util.claimsFor()</code>.
+ */
+public class ClaimIndexTest extends TestCase {
+
+    private static final SchemaKey BC = SchemaKey.of("did:bc", "bc-reg", "1.0");
+    private static final SchemaKey SRI = SchemaKey.of("did:sri", "sri", "1.0");
+    private static final List<String> ATTRS = Arrays.asList("id", "city", "status");
+
+    /**
+     * Return claims structure as HolderProver returns, each claim appearing once per attribute, with claims
+     * alternating between schemata.
+     */
+    private static ObjectNode claims(int count) {
+        ObjectNode rv = (ObjectNode)JsonUtil.jsonObject();
+        ObjectNode uuid2claims = rv.putObject("attrs");
+        for (String attr : ATTRS) {
+            ArrayNode innerClaims = uuid2claims.putArray(attr + "_uuid");
+            for (int i = 0; i < count; i++) {
+                ObjectNode innerClaim = innerClaims.addObject();
+                innerClaim.put("referent", "claim::" + i);
+                ObjectNode attrs = innerClaim.putObject("attrs");
+                attrs.put("id", String.valueOf(i));
+                attrs.put("city", i % 3 == 0 ? "Victoria" : "Ottawa");
+                if (i % 4 != 0) {
+                    attrs.put("status", String.valueOf(i % 2));
+                }
+                innerClaim.set("schema_key", (i % 2 == 0 ? BC : SRI).toJson());
+            }
+        }
+
+        return rv;
+    }
+
+    private static ObjectNode filt(String... attrValues) {
+        ObjectNode rv = (ObjectNode)JsonUtil.jsonObject();
+        for (int i = 0; i < attrValues.length; i += 2) {
+            rv.put(attrValues[i], attrValues[i + 1]);
+        }
+
+        return rv;
+    }
+
+    private static List<Map<SchemaKey, ObjectNode>> filts() {
+        Map<SchemaKey, ObjectNode> bcVictoria = new HashMap<>();
+        bcVictoria.put(BC, filt("city", "Victoria"));
+        Map<SchemaKey, ObjectNode> both = new HashMap<>();
+        both.put(BC, filt("city", "Ottawa", "status", "0"));
+        both.put(SRI, filt());
+        Map<SchemaKey, ObjectNode> none = new HashMap<>();
+        none.put(SRI, filt("city", "Nowhere"));
+        Map<SchemaKey, ObjectNode> absentAttr = new HashMap<>();
+        absentAttr.put(SRI, filt("no-such-attr", "1"));
+        Map<SchemaKey, ObjectNode> otherSchema = new HashMap<>();
+        otherSchema.put(SchemaKey.of("did:x", "x", "1.0"), filt());
+
+        return Arrays.asList(null, bcVictoria, both, none, absentAttr, otherSchema, new HashMap<>());
+    }
+
+    public void testClaimsForAsOneShotScan() {
+        ObjectNode claimsNode = claims(40);
+        ClaimIndex index = new ClaimIndex(claimsNode);
+        for (Map<SchemaKey, ObjectNode> filt : filts()) {
+            assertEquals(String.valueOf(filt), Util.claimsFor(claimsNode, filt), index.claimsFor(filt));
+            assertEquals(Util.claimsFor(claimsNode, filt).keySet(), index.match(filt));
+        }
+    }
+
+    public void testMatch() {
+        ClaimIndex index = new ClaimIndex(claims(12));
+        Map<SchemaKey, ObjectNode> filt = new HashMap<>();
+        filt.put(BC, filt("city", "Victoria"));
+
+        assertEquals(new HashSet<>(Arrays.asList("claim::0", "claim::6")), index.match(filt));
+        assertEquals(12, index.match(null).size());
+        assertEquals(6, index.getReferents(SRI).size());
+        assertEquals(
+            new HashSet<>(Arrays.asList("claim::1", "claim::3", "claim::5", "claim::7", "claim::9", "claim::11")),
+            index.getReferents("status", JsonUtil.getJsonNodeFromStringContent("\"1\"")));
+        assertTrue(index.getReferents("status", JsonUtil.getJsonNodeFromStringContent("\"2\"")).isEmpty());
+    }
+
+    public void testSchemaKeysFor() {
+        ObjectNode claimsNode = claims(10);
+        ClaimIndex index = new ClaimIndex(claimsNode);
+        Map<String, SchemaKey> all = Util.schemaKeysFor(claimsNode, new HashSet<>(Arrays.asList("claim::3")));
+
+        assertEquals(10, all.size());
+        assertEquals(BC, all.get("claim::4"));
+        assertEquals(SRI, all.get("claim::3"));
+        assertEquals(all, index.schemaKeysFor(null));
+        assertEquals(
+            Collections.singletonMap("claim::3", SRI),
+            index.schemaKeysFor(new HashSet<>(Arrays.asList("claim::3", "claim::99"))));
+        assertEquals(new HashSet<>(Arrays.asList(BC, SRI)), index.getSchemaKeys());
+        assertSame(SRI, index.getSchemaKey("claim::3"));
+    }
+
+    public void testParallelIndexAsSequential() {
+        ObjectNode claimsNode = claims(2500);
+        ClaimIndex sequential = new ClaimIndex(claimsNode);
+        ClaimIndex parallel = new ClaimIndex(claimsNode, true);
+        for (Map<SchemaKey, ObjectNode> filt : filts()) {
+            assertEquals(sequential.claimsFor(filt), parallel.claimsFor(filt));
+        }
+        assertEquals(sequential.schemaKeysFor(null), parallel.schemaKeysFor(null));
+    }
+
+    public void testNoClaims() {
+        JsonNode claimsNode = JsonUtil.jsonObject();
+        ClaimIndex index = new ClaimIndex(claimsNode);
+
+        assertNull(Util.claimsFor(claimsNode, null));
+        assertTrue(index.claimsFor(null).isEmpty());
+        assertTrue(index.getReferents().isEmpty());
+        assertTrue(index.getSchemaKeys().isEmpty());
+    }
+}
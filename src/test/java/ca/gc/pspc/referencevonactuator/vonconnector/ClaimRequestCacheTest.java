@@ -0,0 +1,83 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>ClaimRequestCache</code>.
+ */
+public class ClaimRequestCacheTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+
+    public void testKeysOnCanonicalJson() throws Exception {
+        ClaimRequestCache cache = new ClaimRequestCache();
+        List<String> byText = cache.keyFor("did:1", new Object[] {"{\"b\": [1, 2], \"a\": {}}", "[]"});
+        List<String> byNode = cache.keyFor(
+            "did:1",
+            new Object[] {MAPPER.readTree("{\"a\":{},\"b\":[1,2]}"), MAPPER.readTree("[ ]")});
+
+        assertEquals(byText, byNode);
+        assertFalse(byText.equals(cache.keyFor("did:2", new Object[] {"{\"b\": [1, 2], \"a\": {}}", "[]"})));
+        assertFalse(byText.equals(cache.keyFor("did:1", new Object[] {"{\"b\": [2, 1], \"a\": {}}", "[]"})));
+        assertEquals("not json", cache.keyFor("did:1", new Object[] {"not json"}).get(1));
+    }
+
+    public void testCachesResponseAtCurrentEpoch() throws Exception {
+        ClaimRequestCache cache = new ClaimRequestCache();
+        List<String> key = cache.keyFor("did:1", new Object[] {"{}"});
+        JsonNode response = MAPPER.readTree("{\"claims\": {}}");
+
+        cache.put(key, cache.epoch("did:1"), response, 16L);
+        assertSame(response, cache.get(key));
+    }
+
+    public void testDropsResponseFromPriorEpoch() throws Exception {
+        ClaimRequestCache cache = new ClaimRequestCache();
+        List<String> key = cache.keyFor("did:1", new Object[] {"{}"});
+        long epoch = cache.epoch("did:1");
+
+        cache.invalidate("did:1"); // e.g., claim-store while claim-request in flight
+        cache.put(key, epoch, MAPPER.readTree("{\"claims\": {}}"), 16L);
+        assertNull(cache.get(key));
+        assertEquals(epoch + 1, cache.epoch("did:1"));
+    }
+
+    public void testInvalidatesOnlyHolder() throws Exception {
+        ClaimRequestCache cache = new ClaimRequestCache();
+        List<String> key1 = cache.keyFor("did:1", new Object[] {"{}"});
+        List<String> key2 = cache.keyFor("did:2", new Object[] {"{}"});
+        JsonNode response = MAPPER.readTree("{\"claims\": {}}");
+        cache.put(key1, cache.epoch("did:1"), response, 16L);
+        cache.put(key2, cache.epoch("did:2"), response, 16L);
+
+        cache.invalidate("did:1");
+        assertNull(cache.get(key1));
+        assertSame(response, cache.get(key2));
+        assertEquals(1, cache.getCache().size());
+        assertEquals(0L, cache.epoch("did:2"));
+    }
+}
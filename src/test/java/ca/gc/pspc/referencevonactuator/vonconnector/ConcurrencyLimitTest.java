@@ -0,0 +1,96 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>ConcurrencyLimit</code>, as configured by default: initial limit 4 within [1, 16], backoff
+ * to 90%, latency tolerance 200% of baseline, 1 s cooldown between decreases.
+ */
+public class ConcurrencyLimitTest extends TestCase {
+
+    private static final long MS = 1000000L;
+
+    /**
+     * Return limit grown past 10 on fast calls of input type, so that any decrease shows in its integer value.
+     */
+    private static ConcurrencyLimit grown(String callType, long elapsedNanos, long nowNanos) {
+        ConcurrencyLimit rv = new ConcurrencyLimit("test");
+        while (rv.getLimit() < 10) {
+            rv.record(callType, false, elapsedNanos, nowNanos);
+        }
+
+        return rv;
+    }
+
+    public void testBaselinePerCallType() {
+        ConcurrencyLimit limit = grown("proof-request", 5000 * MS, 0L);
+        long now = 0L;
+        for (int i = 0; i < 8; i++) {
+            limit.record("did", false, 10 * MS, now += MS);
+        }
+        assertEquals(5000L, limit.getBaselineMillis("proof-request"));
+        assertEquals(10L, limit.getBaselineMillis("did"));
+        assertEquals(0L, limit.getBaselineMillis("claim-request"));
+
+        int before = limit.getLimit();
+        limit.record("proof-request", false, 6000 * MS, now += MS); // within tolerance of its own baseline
+        assertTrue(limit.getLimit() >= before);
+
+        before = limit.getLimit();
+        limit.record("did", false, 50 * MS, now += MS); // slow for its type
+        assertTrue(limit.getLimit() < before);
+        assertEquals(10L, limit.getBaselineMillis("did")); // slow call does not move baseline
+    }
+
+    public void testCooldownBetweenDecreases() {
+        long now = 1000 * MS;
+        ConcurrencyLimit limit = grown("did", 10 * MS, now);
+        ConcurrencyLimit once = grown("did", 10 * MS, now);
+        int before = limit.getLimit();
+
+        for (int i = 0; i < 5; i++) {
+            limit.record("did", true, 10 * MS, now + i * MS); // burst of failures in flight together
+        }
+        once.record("did", true, 10 * MS, now);
+        assertTrue(limit.getLimit() < before);
+        assertEquals(once.getLimit(), limit.getLimit());
+
+        limit.record("did", true, 10 * MS, now + 999 * MS);
+        assertEquals(once.getLimit(), limit.getLimit());
+
+        before = limit.getLimit();
+        limit.record("did", true, 10 * MS, now + 1000 * MS);
+        assertTrue(limit.getLimit() < before);
+    }
+
+    public void testBounds() {
+        ConcurrencyLimit limit = new ConcurrencyLimit("test");
+        long now = 0L;
+        for (int i = 0; i < 100; i++) {
+            limit.record("did", true, 10 * MS, now += 1000 * MS);
+        }
+        assertEquals(1, limit.getLimit());
+
+        for (int i = 0; i < 1000; i++) {
+            limit.record("did", false, 10 * MS, now += MS);
+        }
+        assertEquals(16, limit.getLimit());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>Deadline</code>.
+ */
+public class DeadlineTest extends TestCase {
+
+    @Override
+    protected void tearDown() {
+        assertNull(Deadline.current()); // every test leaves its scopes
+    }
+
+    public void testRemaining() {
+        Deadline later = Deadline.after(1, TimeUnit.HOURS);
+        assertFalse(later.isExpired());
+        assertTrue(later.remainingMillis() > TimeUnit.MINUTES.toMillis(59));
+
+        Deadline past = Deadline.after(-1, TimeUnit.SECONDS);
+        assertTrue(past.isExpired());
+        assertEquals(0L, past.remainingMillis());
+    }
+
+    public void testScope() {
+        assertNull(Deadline.current());
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        Deadline.Scope scope = deadline.enter();
+        try {
+            assertSame(deadline, Deadline.current());
+        }
+        finally {
+            scope.close();
+        }
+        assertNull(Deadline.current());
+    }
+
+    public void testNestedScopesKeepEarliest() {
+        Deadline outer = Deadline.after(1, TimeUnit.MINUTES);
+        Deadline earlier = Deadline.after(1, TimeUnit.SECONDS);
+        Deadline later = Deadline.after(1, TimeUnit.HOURS);
+
+        Deadline.Scope outerScope = outer.enter();
+        try {
+            Deadline.Scope laterScope = later.enter();
+            try {
+                assertSame(outer, Deadline.current()); // later deadline does not extend enclosing one
+            }
+            finally {
+                laterScope.close();
+            }
+            assertSame(outer, Deadline.current());
+
+            Deadline.Scope earlierScope = earlier.enter();
+            try {
+                assertSame(earlier, Deadline.current()); // earlier deadline tightens enclosing one
+            }
+            finally {
+                earlierScope.close();
+            }
+            assertSame(outer, Deadline.current());
+
+            Deadline.Scope nullScope = Deadline.enter(null);
+            try {
+                assertSame(outer, Deadline.current());
+            }
+            finally {
+                nullScope.close();
+            }
+            assertSame(outer, Deadline.current());
+        }
+        finally {
+            outerScope.close();
+        }
+    }
+
+    public void testScopePerThread() throws InterruptedException {
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        AtomicReference<Deadline> seen = new AtomicReference<>(deadline);
+        Deadline.Scope scope = deadline.enter();
+        try {
+            Thread t = new Thread(() -> seen.set(Deadline.current()));
+            t.start();
+            t.join();
+        }
+        finally {
+            scope.close();
+        }
+        assertNull(seen.get());
+    }
+}
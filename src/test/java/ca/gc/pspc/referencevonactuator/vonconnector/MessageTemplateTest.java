@@ -0,0 +1,120 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>MessageTemplate</code>: messages built from json nodes match messages interpolated from
+ * their string forms.
+ */
+public class MessageTemplateTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+
+    private static final String[] JSON_ARGS = new String[] {
+        "{\"a\": [1, 2.5, null, true], \"b\": {\"c\": \"d\\\"e\"}}",
+        "[]",
+        "{}",
+        "\"text\"",
+        "null"
+    };
+
+    /**
+     * Return string form for input node as interpolation takes it: text value for quoted marker, json otherwise.
+     */
+    private static String interpolant(JsonNode node, boolean quoted) {
+        return quoted && node.isTextual() ? node.textValue() : node.toString();
+    }
+
+    private static boolean isQuoted(MessageType msgType) {
+        return msgType == MessageType.CLAIM_OFFER_CREATE || msgType == MessageType.SCHEMA_LOOKUP;
+    }
+
+    public void testBuildAsFillForAllMessageTypes() throws Exception {
+        for (MessageType msgType : MessageType.values()) {
+            MessageTemplate template = msgType.getTemplate();
+            boolean quoted = isQuoted(msgType);
+            int argCount = template.getArgCount();
+
+            for (String json : JSON_ARGS) {
+                JsonNode[] args = new JsonNode[argCount];
+                Object[] tplArgs = new Object[argCount];
+                for (int i = 0; i < argCount; i++) {
+                    args[i] = quoted ? TextNode.valueOf(String.format("did:%d", i)) : MAPPER.readTree(json);
+                    tplArgs[i] = interpolant(args[i], quoted);
+                }
+
+                assertEquals(msgType.getSlug(), MAPPER.readTree(template.fill(tplArgs)), template.build(args));
+                assertEquals(msgType.getSlug(), msgType.form(null, tplArgs), msgType.form(null, args));
+                assertEquals(msgType.getSlug(), msgType.form("did:9", tplArgs), msgType.form("did:9", args));
+            }
+        }
+    }
+
+    public void testBuildSlotsNodesWithoutCopying() throws Exception {
+        JsonNode claimOffer = MAPPER.readTree("{\"issuer_did\": \"did:1\", \"nonce\": \"123\"}");
+        JsonNode msg = MessageType.CLAIM_OFFER_STORE.getTemplate().build(claimOffer);
+
+        assertSame(claimOffer, msg.get("data").get("claim-offer"));
+    }
+
+    public void testBuildQuotedMarkersAsText() throws Exception {
+        MessageTemplate template = MessageType.SCHEMA_LOOKUP.getTemplate();
+        JsonNode schema = template
+            .build(MAPPER.readTree("123"), MAPPER.readTree("{\"x\": 1}"), null)
+            .get("data")
+            .get("schema");
+
+        assertEquals(TextNode.valueOf("123"), schema.get("origin-did"));
+        assertEquals(TextNode.valueOf("{\"x\":1}"), schema.get("name"));
+        assertEquals(TextNode.valueOf("null"), schema.get("version"));
+        assertEquals(MAPPER.readTree(template.fill(123, "{\\\"x\\\":1}", null)).get("data").get("schema"), schema);
+    }
+
+    public void testBuildBareNullAsJsonNull() throws Exception {
+        MessageTemplate template = MessageType.CLAIM_STORE.getTemplate();
+
+        assertTrue(template.build((JsonNode)null).get("data").get("claim").isNull());
+        assertEquals(MAPPER.readTree(template.fill((Object)null)), template.build((JsonNode)null));
+    }
+
+    public void testRejectsTooFewArgs() throws Exception {
+        MessageTemplate template = MessageType.CLAIM_CREATE.getTemplate();
+        try {
+            template.build(MAPPER.readTree("{}"));
+            fail("Expected IllegalArgumentException building with too few arguments");
+        }
+        catch (IllegalArgumentException x) {
+            // expected
+        }
+        try {
+            template.fill("{}");
+            fail("Expected IllegalArgumentException filling with too few arguments");
+        }
+        catch (IllegalArgumentException x) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>PooledTransport</code>, against a local HTTP server: POST <code>/echo</code> responds with
+ * the (decompressed) request body, compressed as per the request <code>Accept-Encoding</code> header;
+ * <code>/empty</code> responds with no body; <code>/fail</code> responds with HTTP 500; <code>/port</code> responds
+ * with the client port of the connection, identifying it; <code>/drip</code> responds with a json array one
+ * element at a time, slowly.
+ */
+public class PooledTransportTest extends TestCase {
+
+    private HttpServer server;
+    private PooledTransport transport;
+
+    @Override
+    protected void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", PooledTransportTest::echo);
+        server.createContext("/empty", x -> {
+            x.sendResponseHeaders(200, -1);
+            x.close();
+        });
+        server.createContext("/fail", x -> {
+            x.sendResponseHeaders(500, -1);
+            x.close();
+        });
+        server.createContext("/port", x -> {
+            byte[] port = Integer.toString(x.getRemoteAddress().getPort()).getBytes(StandardCharsets.UTF_8);
+            x.sendResponseHeaders(200, port.length);
+            x.getResponseBody().write(port);
+            x.close();
+        });
+        server.createContext("/drip", x -> {
+            x.sendResponseHeaders(200, 0);
+            OutputStream out = x.getResponseBody();
+            try {
+                for (int i = 0; i < 40; i++) {
+                    out.write(i == 0 ? '[' : ',');
+                    out.write('0');
+                    out.flush();
+                    Thread.sleep(50L);
+                }
+                out.write(']');
+            }
+            catch (InterruptedException | IOException xx) {
+                // client gave up
+            }
+            x.close();
+        });
+        server.start();
+        transport = new PooledTransport(2, 5000L, 0L, 1024);
+    }
+
+    @Override
+    protected void tearDown() {
+        server.stop(0);
+    }
+
+    private static void echo(HttpExchange x) throws IOException {
+        String reqEncoding = x.getRequestHeaders().getFirst("Content-Encoding");
+        InputStream in = x.getRequestBody();
+        if ("gzip".equals(reqEncoding)) {
+            in = new GZIPInputStream(in);
+        }
+        else if ("deflate".equals(reqEncoding)) {
+            in = new InflaterInputStream(in);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        for (int len = in.read(buf); len >= 0; len = in.read(buf)) {
+            body.write(buf, 0, len);
+        }
+
+        String respEncoding = x.getRequestHeaders().getFirst("Accept-Encoding");
+        if (respEncoding != null) {
+            x.getResponseHeaders().set("Content-Encoding", respEncoding);
+        }
+        x.sendResponseHeaders(200, 0);
+        OutputStream out = x.getResponseBody();
+        if ("gzip".equals(respEncoding)) {
+            out = new GZIPOutputStream(out);
+        }
+        else if ("deflate".equals(respEncoding)) {
+            out = new DeflaterOutputStream(out);
+        }
+        out.write(body.toByteArray());
+        out.close();
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL(String.format("http://127.0.0.1:%d%s", server.getAddress().getPort(), path));
+    }
+
+    private static ObjectNode message() {
+        ObjectNode rv = (ObjectNode)JsonUtil.jsonObject();
+        rv.put("type", "echo");
+        rv.putObject("data").put("text", "héllo wörld ".concat(new String(new char[4096]).replace('\0', 'x')));
+        return rv;
+    }
+
+    private JsonNode roundTrip(String reqEncoding, String respEncoding) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        if (reqEncoding != null) {
+            headers.put("Content-Encoding", reqEncoding);
+        }
+        if (respEncoding != null) {
+            headers.put("Accept-Encoding", respEncoding);
+        }
+        return transport.exchange(HttpMethod.POST, url("/echo"), headers, message(), ResponseHandler.TREE, 5000);
+    }
+
+    public void testPlainRoundTrip() throws IOException {
+        assertEquals(message(), roundTrip(null, null));
+        assertEquals(message(), transport.exchange(HttpMethod.POST, url("/echo"), message(), ResponseHandler.TREE));
+    }
+
+    public void testGzipRoundTrip() throws IOException {
+        assertEquals(message(), roundTrip("gzip", "gzip"));
+    }
+
+    public void testDeflateRoundTrip() throws IOException {
+        for (int i = 0; i < 32; i++) { // exercise deflater and inflater release on close
+            assertEquals(message(), roundTrip("deflate", "deflate"));
+        }
+    }
+
+    public void testEmptyResponse() throws IOException {
+        assertNull(transport.exchange(HttpMethod.GET, url("/empty"), null, ResponseHandler.TREE));
+    }
+
+    public void testHttpStatus() throws IOException {
+        try {
+            transport.exchange(HttpMethod.GET, url("/fail"), null, ResponseHandler.TREE);
+            fail("expected HttpStatusException");
+        }
+        catch (HttpStatusException x) {
+            assertEquals(500, x.getStatus());
+        }
+    }
+
+    public void testTimeoutBoundsWholeExchange() throws IOException {
+        assertEquals(40, transport.exchange(HttpMethod.GET, url("/drip"), null, null, ResponseHandler.TREE, 0).size());
+
+        long start = System.nanoTime();
+        try {
+            transport.exchange(HttpMethod.GET, url("/drip"), null, null, ResponseHandler.TREE, 500); // reads < 500 ms
+            fail("Expected SocketTimeoutException on response outrunning timeout");
+        }
+        catch (SocketTimeoutException x) {
+            // expected
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+        assertTrue(String.format("Exchange ran %d ms", elapsedMillis), elapsedMillis < 1500L);
+    }
+
+    public void testTimeoutSparesPromptExchange() throws Exception {
+        PooledTransport pooled = new PooledTransport(1, 5000L, 0L, 1024);
+        JsonNode port = pooled.exchange(HttpMethod.GET, url("/port"), null, null, ResponseHandler.TREE, 200);
+        Thread.sleep(300L); // past timeout: watchdog must not disconnect the cached connection
+        assertEquals(port, pooled.exchange(HttpMethod.GET, url("/port"), null, null, ResponseHandler.TREE, 200));
+    }
+
+    private int port(PooledTransport pooled) throws IOException {
+        return pooled.exchange(HttpMethod.GET, url("/port"), null, ResponseHandler.TREE).intValue();
+    }
+
+    public void testReusesConnectionWithinTtl() throws IOException {
+        PooledTransport pooled = new PooledTransport(1, 5000L, 60000L, 1024);
+        int port = port(pooled);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(port, port(pooled));
+        }
+    }
+
+    public void testRetiresConnectionPastTtl() throws Exception {
+        PooledTransport pooled = new PooledTransport(1, 5000L, 200L, 1024);
+        int port = port(pooled);
+        assertEquals(port, port(pooled));
+
+        Thread.sleep(300L);
+        assertEquals(port, port(pooled)); // retiring request uses cached connection, then disconnects it
+        int next = port(pooled);
+        assertTrue(port != next);
+        assertEquals(next, port(pooled)); // new generation stays in cache
+    }
+}
@@ -0,0 +1,105 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>PyLiteralConverter</code>: expected json as python <code>json.dumps()</code> gives for
+ * the dict that <code>pprint</code> prints as input.
+ */
+public class PyLiteralConverterTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+
+    private static final String[][] PPRINT_TO_JSON = new String[][] {
+        {
+            "{'a': 1,\n 'b': None,\n 'c': [True, False, None],\n 'd': (1, 2.5, -3e-07),\n 'e': {'f': 'g'}}",
+            "{\"a\": 1, \"b\": null, \"c\": [true, false, null], \"d\": [1, 2.5, -3e-07], \"e\": {\"f\": \"g\"}}"
+        },
+        {
+            "{'esc': '\\t\\n\\\\\\x00\\x7f',\n \"it's\": 'say \"hi\"',\n 'uni': 'é€𝄞'}",
+            "{\"it's\": \"say \\\"hi\\\"\", \"esc\": \"\\t\\n\\\\\\u0000\\u007f\", " +
+                "\"uni\": \"\\u00e9\\u20ac\\ud834\\udd1e\"}"
+        },
+        {
+            "{None: 'none key',\n 1: 'int key',\n 2.5: 'float key'}",
+            "{\"1\": \"int key\", \"null\": \"none key\", \"2.5\": \"float key\"}"
+        },
+        {
+            "{'big': 123456789012345678901234567890,\n 'edict': {},\n 'empty': [],\n 'neg': -42,\n 'tuple1': (7,)}",
+            "{\"big\": 123456789012345678901234567890, \"neg\": -42, \"tuple1\": [7], \"empty\": [], \"edict\": {}}"
+        },
+        {
+            "{'long': 'xxxxxxxxxxxxxxxxxxxxxxxxxxxxxx '\n         'yyyyyyyyyyyyyyyyyyyyyyyyyyyyyy'}",
+            "{\"long\": \"xxxxxxxxxxxxxxxxxxxxxxxxxxxxxx yyyyyyyyyyyyyyyyyyyyyyyyyyyyyy\"}"
+        }
+    };
+
+    /**
+     * Return json for input pretty-printed python dict as <code>Util.pydictpp2Json()</code> did by regular
+     * expressions, for simple dicts only.
+     */
+    private static String pydictpp2JsonByRegex(String ppp) {
+        return ppp.replaceAll(": None", ": null").replaceAll("'([^']+)'([:\\],}])", "\"$1\"$2");
+    }
+
+    public void testAsJsonDumps() throws Exception {
+        for (String[] pair : PPRINT_TO_JSON) {
+            assertEquals(pair[0], MAPPER.readTree(pair[1]), PyLiteralConverter.toJsonNode(pair[0]));
+            assertEquals(pair[0], MAPPER.readTree(pair[1]), MAPPER.readTree(Util.pydictpp2Json(pair[0])));
+        }
+    }
+
+    public void testAsByRegexOnSimpleDicts() throws Exception {
+        String[] simple = new String[] {
+            "{}",
+            "{'legalName': 'Tart City'}",
+            "{'legalName': 'Tart City', 'orgTypeId': None, 'ids': ['1', '2']}",
+            "{'claim': {'attrs': {'city': ['Victoria', '123']},\n           'issuer_did': 'Q4zqM7aXqm7gDQkUVLng9h'},\n" +
+                " 'schema_seq_no': 12}"
+        };
+        for (String ppp : simple) {
+            assertEquals(ppp, MAPPER.readTree(pydictpp2JsonByRegex(ppp)), PyLiteralConverter.toJsonNode(ppp));
+        }
+    }
+
+    public void testNonFinite() throws Exception {
+        assertEquals(
+            MAPPER.readTree("{\"a\": \"Infinity\", \"b\": \"-Infinity\", \"c\": \"NaN\"}"),
+            PyLiteralConverter.toJsonNode("{'a': inf, 'b': -inf, 'c': nan}"));
+    }
+
+    public void testNotLiteral() {
+        for (String repr : new String[] {"{'a': }", "{'a': 1", "['a' 'b'", "{'a': 1} x", "{'a': foo}"}) {
+            try {
+                PyLiteralConverter.toJsonNode(repr);
+                fail(String.format("Expected IOException converting [%s]", repr));
+            }
+            catch (IOException x) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>SchemaCache</code>, on a temporary file store and a counting lookup function whose futures
+ * the tests complete.
+ */
+public class SchemaCacheTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+    private static final SchemaKey S_KEY = SchemaKey.of("did:1", "bc-reg", "1.0");
+
+    private Path dir;
+    private AtomicInteger lookups;
+    private List<CompletableFuture<JsonNode>> futures;
+
+    @Override
+    protected void setUp() throws IOException {
+        dir = Files.createTempDirectory("schema-cache");
+        lookups = new AtomicInteger();
+        futures = new ArrayList<>();
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        for (Path p : files()) {
+            Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    private SchemaCache cache() {
+        return new SchemaCache(dir, sKey -> {
+            lookups.incrementAndGet();
+            CompletableFuture<JsonNode> rv = new CompletableFuture<>();
+            synchronized (futures) {
+                futures.add(rv);
+            }
+            return rv;
+        });
+    }
+
+    private List<Path> files() throws IOException {
+        List<Path> rv = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(dir)) {
+            for (Path p : paths) {
+                rv.add(p);
+            }
+        }
+        return rv;
+    }
+
+    private static JsonNode schema() throws IOException {
+        return MAPPER.readTree("{\"identifier\": \"did:1\", \"seqNo\": 12, " +
+            "\"data\": {\"name\": \"bc-reg\", \"version\": \"1.0\", \"attr_names\": [\"legalName\"]}}");
+    }
+
+    public void testHitsMemoryWithoutLookup() throws Exception {
+        SchemaCache cache = cache();
+        CompletableFuture<JsonNode> miss = cache.getAsync(S_KEY);
+        futures.get(0).complete(schema());
+        assertEquals(schema(), miss.get());
+
+        CompletableFuture<JsonNode> hit = cache.getAsync(S_KEY);
+        assertTrue(hit.isDone());
+        assertEquals(schema(), hit.get());
+        assertNotSame(miss.get(), hit.get());
+        assertEquals(1, lookups.get());
+        assertTrue(cache.contains(S_KEY));
+    }
+
+    public void testHitsFileStoreAfterRestart() throws Exception {
+        cache().getAsync(S_KEY);
+        futures.get(0).complete(schema());
+
+        SchemaCache restarted = cache();
+        assertTrue(restarted.contains(S_KEY));
+        assertEquals(schema(), restarted.get(S_KEY));
+        assertEquals(1, lookups.get());
+    }
+
+    public void testReplacesFileAtomically() throws Exception {
+        cache().getAsync(S_KEY);
+        futures.get(0).complete(schema());
+        List<Path> stored = files();
+        assertEquals(1, stored.size());
+
+        Files.write(stored.get(0), "{}".getBytes(StandardCharsets.UTF_8)); // empty: no schema cached
+        SchemaCache restarted = cache();
+        assertFalse(restarted.contains(S_KEY));
+        CompletableFuture<JsonNode> miss = restarted.getAsync(S_KEY);
+        futures.get(1).complete(schema());
+
+        assertEquals(schema(), miss.get());
+        assertEquals(stored, files()); // replaced in place, no temporary file left over
+        assertEquals(schema(), MAPPER.readTree(stored.get(0).toFile()));
+    }
+
+    public void testCoalescesConcurrentLookups() throws Exception {
+        SchemaCache cache = cache();
+        CompletableFuture<JsonNode> first = cache.getAsync(S_KEY);
+        CompletableFuture<JsonNode> second = cache.getAsync(S_KEY);
+        assertEquals(1, lookups.get());
+        assertFalse(first.isDone());
+
+        futures.get(0).complete(schema());
+        assertEquals(schema(), first.get());
+        assertEquals(schema(), second.get());
+        assertNotSame(first.get(), second.get());
+        assertEquals(1, lookups.get());
+    }
+
+    public void testEmptyResponseNotCached() throws Exception {
+        SchemaCache cache = cache();
+        CompletableFuture<JsonNode> first = cache.getAsync(S_KEY);
+        CompletableFuture<JsonNode> second = cache.getAsync(S_KEY);
+        futures.get(0).complete(null);
+
+        assertEquals(JsonUtil.jsonObject(), first.get());
+        assertEquals(JsonUtil.jsonObject(), second.get());
+        assertFalse(cache.contains(S_KEY));
+        assertTrue(files().isEmpty());
+
+        cache.getAsync(S_KEY);
+        assertEquals(2, lookups.get());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ClaimOffer;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>SchemaKey</code>.
+ */
+public class SchemaKeyTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+
+    private static ObjectNode node(String json) throws Exception {
+        return (ObjectNode)MAPPER.readTree(json);
+    }
+
+    public void testSerializesOriginDidUnderFieldReceived() throws Exception {
+        ObjectNode issuerNode = node("{\"issuer\": \"did:1\", \"name\": \"bc-reg\", \"version\": \"1.0\"}");
+
+        assertEquals(issuerNode, SchemaKey.of(issuerNode).toJson());
+        assertEquals(issuerNode, new SchemaKey(issuerNode).toJson());
+        assertEquals(issuerNode, SchemaKey.of(MAPPER.getFactory().createParser(issuerNode.toString())).toJson());
+        assertEquals(
+            node("{\"did\": \"did:1\", \"name\": \"bc-reg\", \"version\": \"1.0\"}"),
+            SchemaKey.of("did:1", "bc-reg", "1.0").toJson());
+    }
+
+    public void testComparesWithoutRegardToOriginDidField() throws Exception {
+        SchemaKey byDid = SchemaKey.of(node("{\"did\": \"did:1\", \"name\": \"bc-reg\", \"version\": \"1.0\"}"));
+        SchemaKey byIssuer = SchemaKey.of(node("{\"issuer\": \"did:1\", \"name\": \"bc-reg\", \"version\": \"1.0\"}"));
+
+        assertEquals(byDid, byIssuer);
+        assertEquals(byDid.hashCode(), byIssuer.hashCode());
+        assertEquals("did", byDid.toJson().fieldNames().next());
+        assertEquals("issuer", byIssuer.toJson().fieldNames().next());
+    }
+
+    public void testModelRoundTripsSchemaKey() throws Exception {
+        JsonNode offerNode = node(
+            "{\"issuer_did\": \"did:1\", " +
+            "\"schema_key\": {\"identifier\": \"did:1\", \"name\": \"bc-reg\", \"version\": \"1.0\"}, " +
+            "\"nonce\": \"123\"}");
+        ClaimOffer offer = MAPPER.treeToValue(offerNode, ClaimOffer.class);
+
+        assertEquals(SchemaKey.of("did:1", "bc-reg", "1.0"), offer.getSchemaKey());
+        assertEquals(offerNode, offer.toJson());
+    }
+
+    public void testInternsEqualKeys() throws Exception {
+        SchemaKey sKey = SchemaKey.of("did:2", "bc-reg", "1.0");
+
+        assertSame(sKey, SchemaKey.of(new String("did:2"), new String("bc-reg"), new String("1.0")));
+        assertSame(
+            sKey,
+            SchemaKey.of(node("{\"version\": \"1.0\", \"did\": \"did:2\", \"name\": \"bc-reg\"}")));
+        assertSame(sKey, SchemaKey.of(MAPPER.getFactory().createParser(sKey.toJson().toString())));
+        assertNotSame(sKey, new SchemaKey("did:2", "bc-reg", "1.0"));
+        assertEquals(sKey, new SchemaKey("did:2", "bc-reg", "1.0"));
+        assertNotSame(
+            sKey,
+            SchemaKey.of(node("{\"issuer\": \"did:2\", \"name\": \"bc-reg\", \"version\": \"1.0\"}")));
+        assertFalse(sKey.equals(SchemaKey.of("did:2", "bc-reg", "1.1")));
+    }
+
+    public void testParsesWithinEnclosingJson() throws Exception {
+        JsonParser parser = MAPPER.getFactory().createParser(
+            "[{\"did\": \"did:3\", \"name\": \"bc-reg\", \"version\": \"1.0\"}, 1]");
+        assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+        assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+
+        assertEquals(SchemaKey.of("did:3", "bc-reg", "1.0"), SchemaKey.of(parser));
+        assertEquals(JsonToken.END_OBJECT, parser.getCurrentToken());
+        assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+    }
+
+    public void testRejectsParserNonSchemaKey() throws Exception {
+        String[] jsons = new String[] {
+            "[\"did:4\", \"bc-reg\", \"1.0\"]",
+            "{\"did\": \"did:4\", \"name\": \"bc-reg\"}",
+            "{\"did\": \"did:4\", \"version\": \"1.0\"}",
+            "{\"did\": \"did:4\", \"name\": \"bc-reg\", \"name\": \"bc-reg\", \"version\": \"1.0\"}",
+            "{\"did\": \"did:4\", \"issuer\": \"did:4\", \"name\": \"bc-reg\", \"version\": \"1.0\"}"
+        };
+        for (String json : jsons) {
+            try {
+                SchemaKey.of(MAPPER.getFactory().createParser(json));
+                fail(String.format("Expected JsonParseException parsing [%s]", json));
+            }
+            catch (JsonParseException x) {
+                // expected
+            }
+        }
+    }
+
+    public void testRejectsNodeNonSchemaKey() throws Exception {
+        String[] jsons = new String[] {
+            "{\"did\": \"did:4\", \"name\": \"bc-reg\"}",
+            "{\"did\": \"did:4\", \"name\": \"bc-reg\", \"ver\": \"1.0\"}",
+            "{\"did\": \"did:4\", \"issuer\": \"did:4\", \"name\": \"bc-reg\", \"version\": \"1.0\"}"
+        };
+        for (String json : jsons) {
+            try {
+                SchemaKey.of(node(json));
+                fail(String.format("Expected IllegalArgumentException on [%s]", json));
+            }
+            catch (IllegalArgumentException x) {
+                // expected
+            }
+        }
+    }
+}
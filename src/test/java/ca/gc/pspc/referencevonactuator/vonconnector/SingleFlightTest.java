@@ -0,0 +1,137 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>SingleFlight</code>.
+ */
+public class SingleFlightTest extends TestCase {
+
+    private static final int FOLLOWERS = 4;
+
+    private ExecutorService pool;
+
+    @Override
+    protected void setUp() {
+        pool = Executors.newFixedThreadPool(FOLLOWERS + 1);
+    }
+
+    @Override
+    protected void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Run one leader and followers on one key, the leader's call blocking until followers have joined it.
+     */
+    private <V> List<Future<V>> runOverlapping(SingleFlight<String, V> flight, V result, AtomicInteger calls)
+            throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<V>> rv = new ArrayList<>();
+        rv.add(pool.submit(() -> flight.execute("k", () -> {
+            calls.incrementAndGet();
+            release.await();
+            return result;
+        })));
+        while (flight.size() == 0) {
+            Thread.sleep(5);
+        }
+        for (int i = 0; i < FOLLOWERS; i++) {
+            rv.add(pool.submit(() -> flight.execute("k", () -> {
+                calls.incrementAndGet();
+                return result;
+            })));
+        }
+        Thread.sleep(200); // let followers join
+        release.countDown();
+
+        return rv;
+    }
+
+    public void testSharesCopiesOfResult() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger copies = new AtomicInteger();
+        SingleFlight<String, StringBuilder> flight = new SingleFlight<>(sb -> {
+            copies.incrementAndGet();
+            return new StringBuilder(sb);
+        });
+        StringBuilder result = new StringBuilder("result");
+
+        List<StringBuilder> results = new ArrayList<>();
+        for (Future<StringBuilder> future : runOverlapping(flight, result, calls)) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(FOLLOWERS + 1, copies.get()); // leader copies too, having been joined
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("result", results.get(i).toString());
+            assertNotSame(result, results.get(i));
+            for (int j = 0; j < i; j++) {
+                assertNotSame(results.get(j), results.get(i));
+            }
+        }
+        assertEquals(0, flight.size());
+    }
+
+    public void testSharesNullResult() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        SingleFlight<String, StringBuilder> flight = new SingleFlight<>(sb -> new StringBuilder(sb.toString()));
+
+        for (Future<StringBuilder> future : runOverlapping(flight, null, calls)) {
+            assertNull(future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+    }
+
+    public void testUnsharedResultIsNotCopied() throws Exception {
+        SingleFlight<String, StringBuilder> flight = new SingleFlight<>(sb -> {
+            throw new AssertionError("copied unshared result");
+        });
+        StringBuilder result = new StringBuilder("result");
+
+        assertSame(result, flight.execute("k", () -> result));
+        assertNull(flight.execute("k", () -> null));
+    }
+
+    public void testFailurePropagatesAndClearsKey() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(s -> s);
+        try {
+            flight.execute("k", () -> {
+                throw new IOException("boom");
+            });
+            fail("expected IOException");
+        }
+        catch (IOException x) {
+            assertEquals("boom", x.getMessage());
+        }
+        assertEquals(0, flight.size());
+        assertEquals("again", flight.execute("k", () -> "again"));
+    }
+}
@@ -0,0 +1,383 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>Util</code>.
+ */
+public class UtilTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+
+    public void testDecodeInt32() {
+        assertEquals("0", Util.decode("0"));
+        assertEquals("7", Util.decode("007"));
+        assertEquals("4294967295", Util.decode("4294967295"));
+        assertEquals("4294967295", Util.decode("0000000000000000004294967295")); // past long fast path
+    }
+
+    public void testDecodeSentinels() {
+        assertEquals("", Util.decode("4294967296"));
+        assertNull(Util.decode("4294967297"));
+    }
+
+    public void testDecodeAsBigIntegerScheme() {
+        // encoded values for ASCII strings of 1 to 20 characters, across long fast path and BigInteger path
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            value.append((char)('a' + i));
+            BigInteger encoded = new BigInteger(1, hex(value.toString()).getBytes(StandardCharsets.US_ASCII))
+                .add(BigInteger.ONE.shiftLeft(32));
+            assertEquals(value.toString(), Util.decode(encoded.toString()));
+        }
+    }
+
+    public void testDecodeUtf8() {
+        String value = "\u00e9t\u00e9 \u6771\u4eac \ud83d\ude00";
+        BigInteger encoded = new BigInteger(1, hex(value).getBytes(StandardCharsets.US_ASCII))
+            .add(BigInteger.ONE.shiftLeft(32));
+
+        assertEquals(value, Util.decode(encoded.toString()));
+    }
+
+    public void testDecodeInvalid() {
+        for (String value : new String[] {null, "", "abc", "-1", "1.5", "4294967298"}) { // last: 1 hex digit
+            try {
+                Util.decode(value);
+                fail(String.format("Expected IllegalArgumentException decoding [%s]", value));
+            }
+            catch (IllegalArgumentException x) {
+                // expected
+            }
+        }
+    }
+
+    public void testDecodeAll() throws Exception {
+        Map<String, String> expected = new HashMap<>();
+        expected.put("id", "7");
+        expected.put("name", "Tart City");
+        expected.put("empty", "");
+        expected.put("none", null);
+
+        assertEquals(expected, Util.decodeAll(MAPPER.readTree(String.format(
+            "{\"id\": \"7\", \"name\": \"%s\", \"empty\": \"4294967296\", \"none\": 4294967297}",
+            Util.encode("Tart City")))));
+    }
+
+    /**
+     * Return lower-case hex digits of UTF-8 encoding of input string.
+     */
+    private static String hex(String value) {
+        StringBuilder rv = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            rv.append(String.format("%02x", b));
+        }
+
+        return rv.toString();
+    }
+
+    public void testEncodePassesInt32Through() {
+        for (String value : new String[] {"0", "5", "4294967295", "-0", "+7", " 7 ", "\t8\n", "007", "1_000",
+                "\u0663", "\u00a07\u00a0", "\u0085 5"}) {
+            assertEquals(value, Util.encode(value));
+        }
+    }
+
+    public void testEncodeOther() {
+        // expected values as agents (von_agent) encode
+        assertEquals("4294967297", Util.encode(null));
+        assertEquals("4294967296", Util.encode(""));
+        assertEquals("292322627871127901203326663888449211328527676214", Util.encode("4294967296"));
+        assertEquals("5140394801", Util.encode("-1"));
+        assertEquals("5190857521", Util.encode("_1"));
+        assertEquals("5153830246", Util.encode("1_"));
+        assertEquals("3688788287186940720", Util.encode("1__0"));
+        assertEquals("56290686874421", Util.encode("1.5"));
+        assertEquals("4294981169", Util.encode("a"));
+        assertEquals("3904961945487488564", Util.encode("abcd"));
+        assertEquals("7291952530716767031", Util.encode("\u200b7"));
+    }
+
+    public void testEncodeLong() {
+        assertEquals("0", Util.encode(0L));
+        assertEquals("4294967295", Util.encode(4294967295L));
+        assertEquals(Util.encode("4294967296"), Util.encode(4294967296L));
+        assertEquals(Util.encode("-1"), Util.encode(-1L));
+        assertEquals(Util.encode(Long.toString(Long.MIN_VALUE)), Util.encode(Long.MIN_VALUE));
+    }
+
+    public void testEncodeAll() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("int", 7);
+        data.put("long", -2L);
+        data.put("text", "Tart City");
+        data.put("numeric", "12");
+        data.put("null", null);
+        Map<String, String> encoded = Util.encodeAll(data);
+
+        assertEquals("7", encoded.get("int"));
+        assertEquals(Util.encode("-2"), encoded.get("long"));
+        assertEquals(Util.encode("Tart City"), encoded.get("text"));
+        assertEquals("12", encoded.get("numeric"));
+        assertEquals("4294967297", encoded.get("null"));
+        assertEquals(encoded, Util.encodeAll(MAPPER.readTree(
+            "{\"int\": 7, \"long\": -2, \"text\": \"Tart City\", \"numeric\": \"12\", \"null\": null}")));
+    }
+
+    public void testEncodeRoundTrips() {
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            longValue.append("\u00e9t\u00e9 ");
+        }
+        for (String value : new String[] {null, "", "0", "4294967295", "a", "abc", "abcd", "Tart City",
+                "-1", "4294967296", "1.5", "\u00e9t\u00e9", "\u6771\u4eac", "\ud83d\ude00", longValue.toString()}) {
+            assertEquals(value, Util.decode(Util.encode(value)));
+        }
+    }
+
+    /**
+     * Return database field name for input as <code>toField()</code> did by regular expressions alone.
+     */
+    private static String toFieldByRegex(String raw) {
+        if ((raw == null) || raw.length() == 0) {
+            return raw;
+        }
+
+        String rv = raw.trim().replaceAll("(\\p{Upper}+)", "_$1");
+        rv = rv.toLowerCase().replaceAll("[\\p{Punct}\\p{Blank}]+", "_");
+        if (rv.startsWith("_") && !raw.startsWith("_")) {
+            rv = rv.replaceFirst("_", "");
+        }
+
+        return rv;
+    }
+
+    public void testToField() {
+        assertNull(Util.toField(null));
+        assertEquals("", Util.toField(""));
+        assertEquals("host_name", Util.toField("Host Name"));
+        assertEquals("legal_name", Util.toField("legalName"));
+        assertEquals("org_type_id", Util.toField("orgTypeId"));
+        assertEquals("sri_reg_date", Util.toField("  sri-reg.Date "));
+        assertEquals("_bus_id", Util.toField("_busID"));
+        assertEquals("legal_name", Util.toField("legalName")); // memoized
+    }
+
+    public void testToFieldAsByRegex() {
+        String alphabet = "aZbYI _-.\t\n\r\u0001\u007f09~`!@[]{}|\\\"'\u00e9\u0130\u03a9 \u000b";
+        Random random = new Random(1L);
+        Locale locale = Locale.getDefault();
+        try {
+            for (String lang : new String[] {"en", "tr", "fr"}) {
+                Locale.setDefault(new Locale(lang));
+                for (int t = 0; t < 20000; t++) {
+                    boolean ascii = random.nextInt(4) > 0;
+                    StringBuilder raw = new StringBuilder();
+                    for (int i = random.nextInt(10); i > 0; i--) {
+                        raw.append(alphabet.charAt(random.nextInt(alphabet.length() - (ascii ? 5 : 0))));
+                    }
+                    String expected = toFieldByRegex(raw.toString());
+
+                    assertEquals(lang + ": [" + raw + "]", expected, Util.toField(raw.toString()));
+                    assertEquals(lang + ": [" + raw + "]", expected, Util.toField(raw.toString()));
+                }
+            }
+        }
+        finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Return proof-request response with input revealed_attrs json per referent.
+     */
+    private static String proof(String... referentRevealed) {
+        StringBuilder proofs = new StringBuilder();
+        for (int i = 0; i < referentRevealed.length; i += 2) {
+            proofs.append(i == 0 ? "" : ",").append(String.format(
+                "\"%s\": {\"primary_proof\": {\"eq_proof\": {\"a_prime\": \"1\", \"revealed_attrs\": %s, " +
+                    "\"m\": {\"x\": \"2\"}}, \"ge_proofs\": []}, \"non_revoc_proof\": null}",
+                referentRevealed[i],
+                referentRevealed[i + 1]));
+        }
+
+        return String.format(
+            "{\"proof-req\": {\"nonce\": \"1\"}, " +
+                "\"proof\": {\"proof\": {\"proofs\": {%s}, \"aggregated_proof\": {}}, \"requested_proof\": {}}}",
+            proofs);
+    }
+
+    private static Map<String, Map<String, String>> streamRevealedAttrs(String json) throws Exception {
+        return Util.readAt(MAPPER.getFactory().createParser(json), new String[] {"proof"}, Util::revealedAttrs);
+    }
+
+    public void testRevealedAttrs() throws Exception {
+        String json = proof(
+            "claim::1",
+            String.format("{\"legalName\": \"%s\", \"id\": \"%s\"}", Util.encode("Tart City"), "7"),
+            "claim::2",
+            String.format("{\"city\": \"%s\"}", Util.encode("")));
+        Map<String, Map<String, String>> expected = new HashMap<>();
+        expected.put("claim::1", new HashMap<>());
+        expected.get("claim::1").put("legalName", "Tart City");
+        expected.get("claim::1").put("id", "7");
+        expected.put("claim::2", new HashMap<>());
+        expected.get("claim::2").put("city", "");
+
+        assertEquals(expected, Util.revealedAttrs(MAPPER.readTree(json).get("proof")));
+        assertEquals(expected, streamRevealedAttrs(json));
+    }
+
+    public void testRevealedAttrsNotObject() throws Exception {
+        String revealed = String.format("{\"city\": \"%s\"}", Util.encode("Victoria"));
+        for (String notObject : new String[] {"null", "[\"1\", {\"2\": 3}]", "\"4\""}) {
+            String json = proof("claim::1", notObject, "claim::2", revealed);
+            JsonNode proofNode = MAPPER.readTree(json).get("proof");
+
+            assertEquals(notObject, Util.revealedAttrs(proofNode), streamRevealedAttrs(json));
+            assertEquals("Victoria", streamRevealedAttrs(json).get("claim::2").get("city"));
+        }
+    }
+
+    public void testRevealedAttrsProofsNotObject() throws Exception {
+        String sibling = String.format(
+            "\"claim::2\": {\"primary_proof\": {\"eq_proof\": {\"revealed_attrs\": {\"city\": \"%s\"}}}}",
+            Util.encode("Victoria"));
+        for (String notObject : new String[] {"null", "[{\"claim::1\": {}}]", "\"x\"", "5"}) {
+            String json = String.format(
+                "{\"proof-req\": {}, \"proof\": {\"proof\": {\"proofs\": %s, %s}, \"requested_proof\": {}}}",
+                notObject,
+                sibling);
+
+            assertEquals(notObject, new HashMap<>(), Util.revealedAttrs(MAPPER.readTree(json).get("proof")));
+            assertEquals(notObject, new HashMap<>(), streamRevealedAttrs(json));
+        }
+    }
+
+    public void testRevealedAttrsNotScalar() throws Exception {
+        try {
+            streamRevealedAttrs(proof("claim::1", "{\"city\": {\"x\": \"1\"}}"));
+            fail("Expected JsonParseException on non-scalar encoded value");
+        }
+        catch (JsonParseException x) {
+            assertTrue(x.getMessage(), x.getMessage().contains("[city]"));
+        }
+    }
+
+    /**
+     * Return inner claim on input referent, with nested values for pruning to skip.
+     */
+    private static String innerClaim(String referent) {
+        return String.format(
+            "{\"referent\": \"%s\", \"attrs\": {\"legalName\": \"Tart City\", \"id\": \"7\"}, " +
+                "\"issuer_did\": \"Q4zqM7aXqm7gDQkUVLng9h\", " +
+                "\"schema_key\": {\"did\": \"Q4zqM7aX\", \"name\": \"bc-reg\", \"version\": \"1.0\"}, " +
+                "\"nested\": [{\"referent\": \"claim::1\", \"attrs\": [[], {\"claims\": {}}]}, null, 3], " +
+                "\"revoc_reg_seq_no\": null}",
+            referent);
+    }
+
+    /**
+     * Return claim-request response with inner claims on input referents per attribute, and decoys
+     * (<code>claims</code> and <code>attrs</code> fields) elsewhere for pruning to copy as they are.
+     */
+    private static String claimsResponse(String[]... referentsByAttr) {
+        StringBuilder attrs = new StringBuilder();
+        for (int i = 0; i < referentsByAttr.length; i++) {
+            StringBuilder claims = new StringBuilder();
+            for (String referent : referentsByAttr[i]) {
+                claims.append(claims.length() == 0 ? "" : ", ").append(innerClaim(referent));
+            }
+            attrs.append(i == 0 ? "" : ", ").append(String.format("\"attr%d_uuid\": [%s]", i, claims));
+        }
+
+        return String.format(
+            "{\"proof-req\": {\"nonce\": \"1\", \"claims\": {\"attrs\": {\"attr0_uuid\": [%s]}}}, " +
+                "\"claims\": {\"attrs\": {%s}, \"predicates\": {\"pred0_uuid\": [%s]}}, " +
+                "\"attrs\": {\"attr0_uuid\": [%s]}}",
+            innerClaim("claim::x"),
+            attrs,
+            innerClaim("claim::x"),
+            innerClaim("claim::x"));
+    }
+
+    private static ObjectNode treePruneClaims(String json, Set<String> referents) throws Exception {
+        ObjectNode rv = (ObjectNode)MAPPER.readTree(json);
+        Util.pruneClaims((ObjectNode)rv.get("claims"), referents);
+        return rv;
+    }
+
+    public void testPruneClaimsStreamMatchesTree() throws Exception {
+        String json = claimsResponse(
+            new String[] {"claim::1", "claim::2", "claim::3", "claim::4"},
+            new String[] {"claim::3", "claim::5"},
+            new String[] {"claim::5"},
+            new String[] {});
+        Set<String> referents = new HashSet<>(Arrays.asList("claim::1", "claim::3", "claim::9"));
+
+        ObjectNode expected = treePruneClaims(json, referents);
+        assertEquals(
+            MAPPER.readTree(claimsResponse(
+                new String[] {"claim::1", "claim::3"},
+                new String[] {"claim::3"},
+                new String[] {},
+                new String[] {})),
+            expected);
+        assertEquals(expected, Util.pruneClaims(MAPPER.getFactory().createParser(json), referents));
+
+        JsonParser parser = MAPPER.getFactory().createParser(json);
+        assertEquals(expected, ResponseHandler.pruningClaims(referents).handle(parser)); // as transport streams
+        assertNull(parser.nextToken()); // read whole response
+    }
+
+    public void testPruneClaimsStreamNoMatch() throws Exception {
+        String json = claimsResponse(new String[] {"claim::1", "claim::2"}, new String[] {"claim::2"});
+        for (Set<String> referents : Arrays.asList(new HashSet<String>(), new HashSet<>(Arrays.asList("claim::x")))) {
+            ObjectNode expected = treePruneClaims(json, referents);
+            assertEquals(0, expected.get("claims").get("attrs").get("attr0_uuid").size());
+            assertEquals(
+                referents.toString(),
+                expected,
+                Util.pruneClaims(MAPPER.getFactory().createParser(json), referents));
+        }
+    }
+
+    public void testPruneClaimsStreamEmpty() throws Exception {
+        assertNull(Util.pruneClaims(MAPPER.getFactory().createParser(""), new HashSet<>(Arrays.asList("claim::1"))));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.Proof;
+import ca.gc.pspc.referencevonactuator.vonconnector.model.ProofRequest;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>VerificationCache</code>.
+ */
+public class VerificationCacheTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+
+    private static final String PROOF_REQ = "{\"nonce\": \"1\", \"requested_attrs\": {\"a\": {\"name\": \"city\"}}}";
+    private static final String PROOF = "{\"proof\": {\"proofs\": {}}, \"requested_proof\": {\"revealed_attrs\": {}}}";
+
+    public void testKeysOnVerifierAndCanonicalContent() throws Exception {
+        VerificationCache cache = new VerificationCache(16, 0L);
+        String key = cache.keyFor(Agent.SRI, new Object[] {PROOF_REQ, PROOF});
+
+        assertEquals(64, key.length());
+        assertTrue(key.matches("[0-9a-f]{64}"));
+        assertEquals(
+            key,
+            cache.keyFor(
+                Agent.SRI,
+                new Object[] {
+                    MAPPER.readTree("{\"requested_attrs\":{\"a\":{\"name\":\"city\"}},\"nonce\":\"1\"}"),
+                    MAPPER.readTree(PROOF)}));
+        assertFalse(key.equals(cache.keyFor(Agent.TRUST_ANCHOR, new Object[] {PROOF_REQ, PROOF})));
+        assertFalse(key.equals(cache.keyFor(Agent.SRI, new Object[] {PROOF_REQ.replace("\"1\"", "\"2\""), PROOF})));
+        assertFalse(key.equals(cache.keyFor(Agent.SRI, new Object[] {PROOF, PROOF_REQ})));
+    }
+
+    public void testCachesOnlyBooleanOutcomes() throws Exception {
+        VerificationCache cache = new VerificationCache(16, 0L);
+        String key = cache.keyFor(Agent.SRI, new Object[] {PROOF_REQ, PROOF});
+
+        cache.put(key, MAPPER.readTree("{\"error\": \"timeout\"}"));
+        cache.put(key, null);
+        assertNull(cache.get(key));
+
+        cache.put(key, BooleanNode.FALSE);
+        assertEquals(BooleanNode.FALSE, cache.get(key));
+    }
+
+    public void testExpiresOutcomesPastTtl() throws Exception {
+        VerificationCache cache = new VerificationCache(16, 20L);
+        String key = cache.keyFor(Agent.SRI, new Object[] {PROOF_REQ, PROOF});
+
+        cache.put(key, BooleanNode.TRUE);
+        assertEquals(BooleanNode.TRUE, cache.get(key));
+
+        Thread.sleep(50L);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getCache().size());
+    }
+
+    public void testBoundsOutcomeCount() throws Exception {
+        VerificationCache cache = new VerificationCache(2, 0L);
+        for (int i = 0; i < 3; i++) {
+            cache.put(String.format("%064x", i), BooleanNode.TRUE);
+        }
+
+        assertEquals(2, cache.getCache().size());
+        assertNull(cache.get(String.format("%064x", 0)));
+    }
+
+    public void testKeysOnModels() throws Exception {
+        VerificationCache cache = new VerificationCache(16, 0L);
+        ProofRequest proofReq = MAPPER.readValue(PROOF_REQ, ProofRequest.class);
+        Proof proof = MAPPER.readValue(PROOF, Proof.class);
+        String key = cache.keyFor(Agent.SRI, new Object[] {proofReq.toPojoNode(), proof.toPojoNode()});
+
+        assertEquals(
+            key,
+            cache.keyFor(
+                Agent.SRI,
+                new Object[] {
+                    MAPPER.readValue(PROOF_REQ, ProofRequest.class).toPojoNode(),
+                    MAPPER.readValue(PROOF, Proof.class).toPojoNode()}));
+        assertFalse(key.equals(cache.keyFor(Agent.SRI, new Object[] {proofReq.toPojoNode(), proofReq.toPojoNode()})));
+    }
+}
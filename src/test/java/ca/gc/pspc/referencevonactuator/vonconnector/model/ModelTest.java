@@ -0,0 +1,108 @@
+/*
+Copyright 2017-2018 Government of Canada - Public Services and Procurement Canada - buyandsell.gc.ca
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package ca.gc.pspc.referencevonactuator.vonconnector.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.gc.pspc.referencevonactuator.intg.JsonUtil;
+import ca.gc.pspc.referencevonactuator.vonconnector.MessageType;
+import ca.gc.pspc.referencevonactuator.vonconnector.Util;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>Model</code> retention of fields that subclasses do not bind, and of explicit nulls.
+ */
+public class ModelTest extends TestCase {
+
+    private static final ObjectMapper MAPPER = JsonUtil.getDefaultMapper();
+
+    private static final String OFFER = "{\"issuer_did\":\"did:1\"," +
+        "\"nonce\":\"123\"," +
+        "\"key_correctness_proof\":{\"c\":\"1\",\"xz_cap\":[1,2.5,{\"a\":null,\"b\":true}],\"xr_cap\":{}}," +
+        "\"empty\":[]}";
+
+    public void testRoundTripsOpaqueFields() throws Exception {
+        JsonNode offerNode = MAPPER.readTree(OFFER);
+        ClaimOffer offer = MAPPER.readValue(OFFER, ClaimOffer.class);
+
+        assertEquals("did:1", offer.getIssuerDid());
+        assertEquals(offerNode, offer.toJson());
+        assertEquals(OFFER, offer.toString());
+        assertEquals(offerNode, MAPPER.readTree(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(offer)));
+    }
+
+    public void testReturnsOpaqueFieldByName() throws Exception {
+        ClaimOffer offer = MAPPER.readValue(OFFER, ClaimOffer.class);
+
+        assertEquals(MAPPER.readTree(OFFER).get("key_correctness_proof"), offer.getOther("key_correctness_proof"));
+        assertEquals("123", offer.getOther("nonce").textValue());
+        assertNull(offer.getOther("issuer_did"));
+        assertEquals(3, offer.getOther().size());
+    }
+
+    public void testRoundTripsExplicitNulls() throws Exception {
+        String json = "{\"issuer_did\":null,\"nonce\":null,\"schema_key\":null}";
+        ClaimOffer offer = MAPPER.readValue(json, ClaimOffer.class);
+
+        assertNull(offer.getIssuerDid());
+        assertNull(offer.getSchemaKey());
+        assertEquals(MAPPER.readTree(json), offer.toJson());
+        assertEquals(MAPPER.readTree(json), MAPPER.readTree(offer.toString()));
+    }
+
+    public void testOmitsAbsentTypedFields() throws Exception {
+        ClaimOffer offer = MAPPER.readValue("{\"nonce\":\"123\"}", ClaimOffer.class);
+
+        assertEquals("{\"nonce\":\"123\"}", offer.toString());
+        assertEquals(MAPPER.readTree("{\"nonce\":\"123\"}"), offer.toJson());
+    }
+
+    public void testNestedModelsToJson() throws Exception {
+        String json = "{\"proof-req\":{\"name\":\"proof\",\"nonce\":\"1\",\"requested_predicates\":null}," +
+            "\"proof\":{\"proof\":{\"proofs\":{},\"aggregated_proof\":{\"c_hash\":\"2\",\"c_list\":[[1,2]]}}," +
+            "\"requested_proof\":{\"revealed_attrs\":{}}}}";
+        ProofResponse response = MAPPER.readValue(json, ProofResponse.class);
+
+        assertEquals(MAPPER.readTree(json), response.toJson());
+        assertEquals(MAPPER.readTree(json).get("proof"), response.getProof().toJson());
+    }
+
+    public void testPojoNodeSerializesAsModel() throws Exception {
+        ClaimOffer offer = MAPPER.readValue(OFFER, ClaimOffer.class);
+        JsonNode msgByPojo = MessageType.CLAIM_OFFER_STORE.form(null, offer.toPojoNode());
+        JsonNode msgByTree = MessageType.CLAIM_OFFER_STORE.form(null, offer.toJson());
+
+        assertEquals(
+            JsonUtil.getCompactWriter().writeValueAsString(msgByTree),
+            JsonUtil.getCompactWriter().writeValueAsString(msgByPojo));
+    }
+
+    public void testProofRevealedAttrs() throws Exception {
+        String json = String.format(
+            "{\"proof\":{\"proofs\":{\"claim::1\":{\"primary_proof\":{\"eq_proof\":{" +
+                "\"revealed_attrs\":{\"city\":\"%s\"},\"m\":{}}}}},\"aggregated_proof\":{}}," +
+                "\"requested_proof\":{}}",
+            Util.encode("Victoria"));
+        Proof proof = MAPPER.readValue(json, Proof.class);
+
+        assertEquals(Util.revealedAttrs(MAPPER.readTree(json)), proof.revealedAttrs());
+        assertEquals("Victoria", proof.revealedAttrs().get("claim::1").get("city"));
+    }
+}